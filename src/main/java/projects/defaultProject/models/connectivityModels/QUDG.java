@@ -41,7 +41,6 @@ import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.models.ConnectivityModelHelper;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.NotYetImplementedException;
-import sinalgo.nodes.Position;
 import sinalgo.runtime.Main;
 import sinalgo.tools.statistics.Distribution;
 
@@ -111,10 +110,7 @@ public class QUDG extends ConnectivityModelHelper {
      */
     @Override
     public boolean isConnected(Node from, Node to) {
-        Position p1 = from.getPosition();
-        Position p2 = to.getPosition();
-
-        double d = p1.squareDistanceTo(p2);
+        double d = from.squareDistanceTo(to);
         if (d <= r_min_squared) {
             return true; // the two nodes are always connected
         }
@@ -133,6 +129,11 @@ public class QUDG extends ConnectivityModelHelper {
         return rand.nextDouble() <= probability;
     }
 
+    @Override
+    public double getMaximumRange(Node n) {
+        return Math.sqrt(r_max_squared);
+    }
+
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
     // -
     // Code to initialize the static variables of this class
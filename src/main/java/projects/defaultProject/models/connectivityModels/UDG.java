@@ -40,7 +40,6 @@ import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.models.ConnectivityModelHelper;
 import sinalgo.nodes.Node;
-import sinalgo.nodes.Position;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
 
@@ -67,10 +66,7 @@ public class UDG extends ConnectivityModelHelper {
 
     @Override
     protected boolean isConnected(Node from, Node to) {
-        Position p1 = from.getPosition();
-        Position p2 = to.getPosition();
-
-        double distance = p1.squareDistanceTo(p2);
+        double distance = from.squareDistanceTo(to);
         return (distance < squareRadius);
     }
 
@@ -91,6 +87,21 @@ public class UDG extends ConnectivityModelHelper {
         return Math.sqrt(squareRadius);
     }
 
+    @Override
+    public boolean isParallelUpdateSupported() {
+        return true; // isConnected() only reads the positions of the nodes
+    }
+
+    @Override
+    public boolean isIncrementalUpdateSupported() {
+        return true; // isConnected() only depends on the distance
+    }
+
+    @Override
+    public double getMaximumRange(Node n) {
+        return getMaxTransmissionRange();
+    }
+
     /**
      * Sets the maximum transmission range of this UDG model.
      *
@@ -0,0 +1,264 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.tools.Tools;
+import sinalgo.tools.logging.LogL;
+
+/**
+ * A variant of the {@link SINR} interference model for very large deployments,
+ * which approximates the interference in the manner of the Barnes-Hut
+ * algorithm. The senders of all packets in the air are sorted into a quadtree
+ * (an octree in 3D), and each subtree is summarized by the total intensity of
+ * its senders and their center of intensity. To determine the interference at
+ * a receiver, the tree is traversed from the root. The senders of a subtree
+ * whose side length s and distance d from the receiver satisfy s &lt; theta * d
+ * are treated as a single sender at their center of intensity, otherwise the
+ * subtree is opened. Subtrees that contain the receiver or the sender of the
+ * tested packet are always opened.
+ * <p>
+ * The accuracy parameter theta trades precision for speed: theta = 0 yields
+ * the exact interference, and typical values are between 0.3 and 1. Testing a
+ * packet then takes time roughly logarithmic in the number of packets in the
+ * air.
+ * <p>
+ * To assess the approximation, this model can additionally compute the exact
+ * interference of each tested packet. It then keeps track of the relative
+ * error of the interference and of the number of packets for which the
+ * approximation changes the decision, and logs each such packet.
+ * <p>
+ * In addition to the entry for the SINR model, this model reads the following
+ * optional entry of the configuration file: <br>
+ * &lt;BarnesHutSINR theta="..." reportError="..."/&gt; <br>
+ * where theta is the accuracy parameter (0.5 by default) and reportError
+ * enables the comparison with the exact interference (false by default).
+ */
+public class BarnesHutSINR extends SINR {
+
+    // the tree shared by all instances of this model
+    private static TransmitterTree tree = null;
+
+    private static double squaredTheta;
+    private static boolean reportError;
+
+    // the tree nodes that remain to be visited
+    private static int[] stack;
+
+    // the statistics about the error of the approximation
+    private static long numTests = 0;
+    private static long numWrongDecisions = 0;
+    private static double maxRelativeError = 0;
+    private static double sumRelativeError = 0;
+
+    /**
+     * The constructor for the BarnesHutSINR class. The first time this constructor
+     * is called, it initializes the tree shared by all instances.
+     */
+    public BarnesHutSINR() {
+        if (tree == null) {
+            double theta = 0.5;
+            try {
+                if (Configuration.hasParameter("BarnesHutSINR/theta")) {
+                    theta = Configuration.getDoubleParameter("BarnesHutSINR/theta");
+                }
+                if (Configuration.hasParameter("BarnesHutSINR/reportError")) {
+                    reportError = Configuration.getBooleanParameter("BarnesHutSINR/reportError");
+                }
+            } catch (CorruptConfigurationEntryException e) {
+                Tools.fatalError("The configuration entries of the BarnesHutSINR model are not valid:\n\n" + e.getMessage());
+            }
+            if (!(theta >= 0)) {
+                Tools.fatalError("The accuracy parameter theta of the BarnesHutSINR model must not be negative.");
+            }
+            squaredTheta = theta * theta;
+            tree = new TransmitterTree();
+            stack = new int[64 * tree.getNumberOfChildren()];
+        }
+    }
+
+    @Override
+    public boolean isDisturbed(Packet p) {
+        tree.update(SinalgoRuntime.packetsInTheAir);
+        Node receiver = p.destination;
+        boolean isActive = SinalgoRuntime.packetsInTheAir.isActive(p);
+
+        if (this.isBlocked(p)) {
+            return true;
+        }
+
+        double signal = p.intensity * pathLoss.getGain(p.origin.squareDistanceTo(receiver));
+        double interference = this.getApproximateInterference(p, isActive);
+        if (reportError) {
+            this.recordError(p, signal, interference);
+        }
+        return this.isDisturbed(p, signal, ambientNoise + interference);
+    }
+
+    /**
+     * Approximates the interference caused by the active packets at the
+     * destination of a packet.
+     *
+     * @param p        The packet to check.
+     * @param isActive Whether p is an active packet, and hence in the tree.
+     * @return The approximate interference.
+     */
+    private double getApproximateInterference(Packet p, boolean isActive) {
+        if (tree.getNumberOfNodes() == 0) {
+            return 0;
+        }
+        Position receiverPos = p.destination.getPosition();
+        double x = receiverPos.xCoord;
+        double y = receiverPos.yCoord;
+        double z = receiverPos.zCoord;
+        Position senderPos = p.origin.getPosition();
+        int numChildren = tree.getNumberOfChildren();
+
+        double interference = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int n = stack[--top];
+            if (tree.getFirstPacket(n) == tree.getEndOfPackets(n)) {
+                continue; // an empty tree node
+            }
+            double squareDistance = tree.getSquareDistanceToCenter(n, x, y, z);
+            double side = tree.getSide(n);
+            if (side * side < squaredTheta * squareDistance && !tree.contains(n, x, y, z)
+                    && !(isActive && tree.contains(n, senderPos.xCoord, senderPos.yCoord, senderPos.zCoord))) {
+                interference += tree.getIntensity(n) * pathLoss.getGain(squareDistance);
+                continue;
+            }
+            int child = tree.getFirstChild(n);
+            if (child >= 0) {
+                for (int c = child + numChildren - 1; c >= child; c--) {
+                    stack[top++] = c;
+                }
+                continue;
+            }
+            for (int i = tree.getFirstPacket(n), end = tree.getEndOfPackets(n); i < end; i++) {
+                Packet pack = tree.getPacket(i);
+                if (pack == p || pack.origin.ID == p.destination.ID) {
+                    continue; // the interference created from this sender is not considered
+                }
+                interference += pack.intensity * pathLoss.getGain(tree.getSquareDistanceToPacket(i, x, y, z));
+            }
+        }
+        return interference;
+    }
+
+    /**
+     * Compares the approximate interference at the destination of a packet to the
+     * exact interference, and updates the error statistics.
+     */
+    private void recordError(Packet p, double signal, double interference) {
+        Position receiverPos = p.destination.getPosition();
+        double x = receiverPos.xCoord;
+        double y = receiverPos.yCoord;
+        double z = receiverPos.zCoord;
+        double exact = 0;
+        int numPackets = tree.getNumberOfNodes() == 0 ? 0 : tree.getEndOfPackets(0);
+        for (int i = 0; i < numPackets; i++) {
+            Packet pack = tree.getPacket(i);
+            if (pack == p || pack.origin.ID == p.destination.ID) {
+                continue;
+            }
+            exact += pack.intensity * pathLoss.getGain(tree.getSquareDistanceToPacket(i, x, y, z));
+        }
+        double relativeError = exact > 0 ? Math.abs(interference - exact) / exact : 0;
+        numTests++;
+        sumRelativeError += relativeError;
+        maxRelativeError = Math.max(maxRelativeError, relativeError);
+        boolean approximate = signal < beta * (ambientNoise + interference);
+        if (approximate != signal < beta * (ambientNoise + exact)) {
+            numWrongDecisions++;
+            if (LogL.WARNING) {
+                Global.log.logln("BarnesHutSINR: The approximation " + (approximate ? "drops" : "delivers")
+                        + " the packet from node " + p.origin.ID + " to node " + p.destination.ID
+                        + " (relative error of the interference: " + relativeError + ").");
+            }
+        }
+    }
+
+    /**
+     * @return The number of packets whose approximate interference was compared to
+     * the exact interference. The comparison is enabled by the configuration
+     * entry BarnesHutSINR/reportError.
+     */
+    public static long getNumberOfComparedTests() {
+        return numTests;
+    }
+
+    /**
+     * @return The number of compared packets that were delivered or dropped only
+     * due to the approximation.
+     */
+    public static long getNumberOfWrongDecisions() {
+        return numWrongDecisions;
+    }
+
+    /**
+     * @return The largest relative error of the interference observed so far.
+     */
+    public static double getMaxRelativeError() {
+        return maxRelativeError;
+    }
+
+    /**
+     * @return The average relative error of the interference observed so far, 0 if
+     * no packets were compared.
+     */
+    public static double getAverageRelativeError() {
+        return numTests == 0 ? 0 : sumRelativeError / numTests;
+    }
+
+    /**
+     * Resets the error statistics.
+     */
+    public static void resetErrorStatistics() {
+        numTests = 0;
+        numWrongDecisions = 0;
+        maxRelativeError = 0;
+        sumRelativeError = 0;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.tools.Tools;
+
+/**
+ * Describes how the intensity of a signal decays with the distance from the
+ * sender. The SINR interference models multiply the intensity of a packet with
+ * the gain of this model to obtain the signal or interference at the receiver.
+ * <p>
+ * The gain is determined from the squared distance, such that the models do
+ * not need to compute square roots for the distances between the nodes.
+ */
+public interface PathLossModel {
+
+    /**
+     * @param squareDistance The squared distance between the sender and the
+     *                       receiver.
+     * @return The fraction of the intensity of a signal that is received at the
+     * given squared distance from the sender.
+     */
+    double getGain(double squareDistance);
+
+    /**
+     * Creates the path-loss model selected by the optional entry
+     * <code>SINR/pathLoss</code> of the configuration file. The entry is either
+     * <code>exact</code> (the default) for a {@link PowerLawPathLoss}, or
+     * <code>table</code> for a {@link TabulatedPathLoss} of the power law. The
+     * resolution of the table is set by the optional entry
+     * <code>SINR/tableBits</code> (8 by default).
+     *
+     * @param alpha The path-loss exponent.
+     * @return The path-loss model to use.
+     */
+    static PathLossModel create(int alpha) {
+        PowerLawPathLoss powerLaw = new PowerLawPathLoss(alpha);
+        try {
+            String type = Configuration.hasParameter("SINR/pathLoss")
+                    ? Configuration.getStringParameter("SINR/pathLoss") : "exact";
+            if (type.equalsIgnoreCase("exact")) {
+                return powerLaw;
+            }
+            if (!type.equalsIgnoreCase("table")) {
+                Tools.fatalError("The configuration entry SINR/pathLoss must be either 'exact' or 'table'.");
+            }
+            int bits = 8;
+            if (Configuration.hasParameter("SINR/tableBits")) {
+                bits = Configuration.getIntegerParameter("SINR/tableBits");
+            }
+            if (bits < 1 || bits > 16) {
+                Tools.fatalError("The configuration entry SINR/tableBits must be between 1 and 16.");
+            }
+            return new TabulatedPathLoss(powerLaw, bits);
+        } catch (CorruptConfigurationEntryException e) {
+            Tools.fatalError("The configuration entries of the path-loss model are not valid:\n\n" + e.getMessage());
+            return powerLaw;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.tools.Tools;
+
+/**
+ * The path-loss model of free space, where the intensity of a signal decays
+ * with the distance r from the sender by a factor 1/r^alpha.
+ * <p>
+ * As the exponent alpha is an integer, the gain is computed from the squared
+ * distance by multiplications only: For an even exponent, the gain is
+ * 1/(r^2)^(alpha/2). For an odd exponent, one additional square root is needed.
+ */
+public class PowerLawPathLoss implements PathLossModel {
+
+    private final int alpha; // the path-loss exponent
+    private final int halfAlpha; // alpha / 2, rounded down
+    private final boolean odd; // whether alpha is odd
+
+    /**
+     * @param alpha The path-loss exponent, which must not be negative.
+     */
+    public PowerLawPathLoss(int alpha) {
+        if (alpha < 0) {
+            Tools.fatalError("The path-loss exponent must not be negative.");
+        }
+        this.alpha = alpha;
+        this.halfAlpha = alpha / 2;
+        this.odd = (alpha & 1) != 0;
+    }
+
+    /**
+     * @return The path-loss exponent of this model.
+     */
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public double getGain(double squareDistance) {
+        switch (alpha) {
+            case 2:
+                return 1 / squareDistance;
+            case 3:
+                return 1 / (squareDistance * Math.sqrt(squareDistance));
+            case 4:
+                return 1 / (squareDistance * squareDistance);
+            case 6:
+                return 1 / (squareDistance * squareDistance * squareDistance);
+            default:
+                double powered = power(squareDistance, halfAlpha);
+                if (odd) {
+                    powered *= Math.sqrt(squareDistance);
+                }
+                return 1 / powered;
+        }
+    }
+
+    /**
+     * Raises a base to a non-negative integer exponent by repeated squaring.
+     */
+    private static double power(double base, int exponent) {
+        double result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+            exponent >>= 1;
+        }
+        return result;
+    }
+}
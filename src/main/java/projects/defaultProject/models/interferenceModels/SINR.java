@@ -39,10 +39,11 @@ package projects.defaultProject.models.interferenceModels;
 import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.models.InterferenceModel;
-import sinalgo.nodes.Position;
+import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
 import sinalgo.tools.Tools;
 import sinalgo.tools.logging.LogL;
 
@@ -62,12 +63,20 @@ import sinalgo.tools.logging.LogL;
  * This model requires the following entry in the configuration file: <br>
  * &lt;SINR alpha="..." beta="..." noise="..."/&gt; <br>
  * where alpha, beta, and noise are three floating point values.
+ * <p>
+ * The decay of the signal is computed by a {@link PathLossModel}, which is
+ * selected by the optional attribute pathLoss of the same entry, see
+ * {@link PathLossModel#create(int)}.
  */
 public class SINR extends InterferenceModel {
 
-    private int alpha = 2; // the path-loss exponent
-    private double beta = 0.5; // the threshold
-    private double ambientNoise = 0; // the ambient noise
+    protected int alpha = 2; // the path-loss exponent
+    protected double beta = 0.5; // the threshold
+    protected double ambientNoise = 0; // the ambient noise
+    protected PathLossModel pathLoss; // the decay of the signal with the distance
+
+    // the path-loss model shared by all instances of this model
+    private static PathLossModel sharedPathLoss = null;
 
     /**
      * The constructor for the SignalToInterference class.
@@ -88,41 +97,111 @@ public class SINR extends InterferenceModel {
         } catch (CorruptConfigurationEntryException e) {
             Tools.fatalError("The configuration entry SINR/noise is not a valid double:\n\n" + e.getMessage());
         }
+        if (sharedPathLoss == null) {
+            sharedPathLoss = PathLossModel.create(alpha);
+        }
+        pathLoss = sharedPathLoss;
     }
 
     @Override
     public boolean isDisturbed(Packet p) {
-        Position receiverPos = p.destination.getPosition();
-        double distanceFromSource = p.origin.getPosition().distanceTo(receiverPos);
-        double poweredDistanceFromSource = Math.pow(distanceFromSource, alpha);
+        double signal = p.intensity * pathLoss.getGain(p.origin.squareDistanceTo(p.destination));
 
-        double signal = p.intensity / poweredDistanceFromSource;
+        if (this.isBlocked(p)) {
+            return true;
+        }
 
         double noise = ambientNoise;
 
         for (Packet pack : SinalgoRuntime.packetsInTheAir) { // iterate over all active packets
-            if (pack == p) {
-                continue; // that's the packet we want
-            }
-            if (pack.origin.ID == p.destination.ID) {
-                // the receiver node of p is sending a packet itself
-                if (!Configuration.canReceiveWhileSending) {
-                    return true;
-                }
+            if (pack == p || pack.origin.ID == p.destination.ID) {
                 continue; // the interference created from this sender is not considered
             }
-            // Detect multiple packets that want to arrive in parallel at the same
-            // destination.
-            if (!Configuration.canReceiveMultiplePacketsInParallel && pack.destination.ID == p.destination.ID) {
+            noise += pack.intensity * pathLoss.getGain(pack.origin.squareDistanceTo(p.destination));
+        }
+
+        return this.isDisturbed(p, signal, noise);
+    }
+
+    /**
+     * Determines in constant time whether a packet cannot be received regardless
+     * of the interference, because its destination is sending a packet itself
+     * (unless canReceiveWhileSending is set), or because other packets arrive at
+     * its destination at the same time (unless
+     * canReceiveMultiplePacketsInParallel is set).
+     *
+     * @param p The packet to check.
+     * @return True if the packet cannot be received, otherwise false.
+     */
+    protected boolean isBlocked(Packet p) {
+        PacketsInTheAirBuffer buffer = SinalgoRuntime.packetsInTheAir;
+        Node receiver = p.destination;
+        boolean isActive = buffer.isActive(p);
+        // the receiver node of p is sending a packet itself
+        if (!Configuration.canReceiveWhileSending) {
+            int sending = buffer.getNumberOfActivePacketsFrom(receiver);
+            if (isActive && p.origin.ID == receiver.ID) {
+                sending--;
+            }
+            if (sending > 0) {
+                return true;
+            }
+        }
+        // multiple packets want to arrive in parallel at the same destination
+        if (!Configuration.canReceiveMultiplePacketsInParallel) {
+            int receiving = buffer.getNumberOfActivePacketsTo(receiver);
+            if (isActive && p.origin.ID != receiver.ID) {
+                receiving--;
+            }
+            if (receiving > 0) {
                 return true;
             }
+        }
+        return false;
+    }
+
+    /**
+     * Subclasses are not updated incrementally, as they may compute the
+     * interference differently in {@link #isDisturbed(Packet)}. A subclass whose
+     * {@link #getInterference(Packet, Packet)} and
+     * {@link #isDisturbed(Packet, double)} agree with its isDisturbed(Packet) may
+     * override this method to return true.
+     *
+     * @return True for this class, false for its subclasses.
+     */
+    @Override
+    public boolean isIncrementalUpdateSupported() {
+        return this.getClass() == SINR.class;
+    }
 
-            Position pos = pack.origin.getPosition();
-            double distance = pos.distanceTo(receiverPos);
-            double poweredDistance = Math.pow(distance, alpha);
-            noise += pack.intensity / poweredDistance;
+    @Override
+    public double getInterference(Packet p, Packet source) {
+        if (source.origin.ID == p.destination.ID) {
+            // the receiver node of p is sending a packet itself
+            return Configuration.canReceiveWhileSending ? 0 : Double.POSITIVE_INFINITY;
         }
+        if (!Configuration.canReceiveMultiplePacketsInParallel && source.destination.ID == p.destination.ID) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return source.intensity * pathLoss.getGain(source.origin.squareDistanceTo(p.destination));
+    }
 
+    @Override
+    public boolean isDisturbed(Packet p, double interference) {
+        double signal = p.intensity * pathLoss.getGain(p.origin.squareDistanceTo(p.destination));
+        return this.isDisturbed(p, signal, ambientNoise + interference);
+    }
+
+    /**
+     * Compares the signal of a packet to the sum of the ambient noise and the
+     * interference at its destination.
+     *
+     * @param p      The packet to check.
+     * @param signal The signal of the packet at its destination.
+     * @param noise  The sum of the ambient noise and the interference.
+     * @return True if the packet is disturbed, otherwise false.
+     */
+    protected boolean isDisturbed(Packet p, double signal, double noise) {
         boolean disturbed = signal < beta * noise;
 
         if (LogL.INTERFERENCE_DETAIL) {
@@ -0,0 +1,201 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.tools.Tools;
+
+/**
+ * A variant of the {@link SINR} interference model for many concurrent
+ * transmissions. Instead of summing up the interference of each packet in the
+ * air, the senders are sorted into the cells of a grid and of a pyramid of
+ * coarser grids, and the interference of all senders in a distant cell is
+ * approximated by the total intensity of these senders, as if all of them were
+ * located at their center of intensity. The cells are visited from the
+ * coarsest level, and a cell that is not distant is replaced by its cells of
+ * the next finer level. Only the senders in the cells of the finest level that
+ * are close to the receiver, and the senders in the cells of the tested packet
+ * and of the receiver, are considered individually.
+ * <p>
+ * A cell is considered distant if the approximation over- or underestimates
+ * the interference of the cell by at most a given relative error. As the
+ * first order terms of the Taylor expansion of r^-alpha around the center of
+ * intensity cancel out, the interference of a cell at distance d from its
+ * center of intensity is off by at most a factor 1/2 alpha (alpha + 1) v
+ * d^alpha / (d - r)^(alpha + 2), where r is the largest distance of a sender
+ * from the center, and v is the average squared distance of the senders,
+ * weighted by their intensity. Therefore, the interference computed by this
+ * model differs from the interference computed by the SINR model by at most
+ * the given relative error. (The bound is derived for the exact power law, a
+ * tabulated path-loss model adds the error of the table.)
+ * <p>
+ * The grid is shared by all nodes and rebuilt whenever the packets in the air
+ * change. Testing a packet for interference then takes time roughly
+ * proportional to the number of levels (logarithmic in the extent of the
+ * occupied area) plus the number of senders close to the receiver, where the
+ * constant factor grows as the error bound decreases.
+ * <p>
+ * In addition to the entry for the SINR model, this model reads the following
+ * optional entry of the configuration file: <br>
+ * &lt;SpatialSINR cellSize="..." errorBound="..."/&gt; <br>
+ * where cellSize is the side length of the cells of the finest level (rMax of
+ * the GeometricNodeCollection by default) and errorBound is the maximal relative
+ * error of the interference (0.01 by default).
+ */
+public class SpatialSINR extends SINR {
+
+    // the grid shared by all instances of this model
+    private static TransmitterGrid grid = null;
+
+    // a cell at distance d from a receiver is distant if d >= FAR_FIELD_RATIO * r
+    // and d^2 >= varianceFactor * v, see the class comment
+    private static final double FAR_FIELD_RATIO = 10;
+    private static double varianceFactor;
+
+    // the cells that remain to be visited, and their levels
+    private static int[] stack = new int[0];
+    private static int[] stackLevels = new int[0];
+
+    /**
+     * The constructor for the SpatialSINR class. The first time this constructor is
+     * called, it initializes the grid shared by all instances.
+     */
+    public SpatialSINR() {
+        if (grid == null) {
+            double cellSize = 0;
+            double errorBound = 0.01;
+            try {
+                if (Configuration.hasParameter("SpatialSINR/cellSize")) {
+                    cellSize = Configuration.getDoubleParameter("SpatialSINR/cellSize");
+                } else {
+                    cellSize = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+                }
+                if (Configuration.hasParameter("SpatialSINR/errorBound")) {
+                    errorBound = Configuration.getDoubleParameter("SpatialSINR/errorBound");
+                }
+            } catch (CorruptConfigurationEntryException e) {
+                Tools.fatalError("The configuration entries of the SpatialSINR model are not valid:\n\n" + e.getMessage());
+            }
+            if (cellSize <= 0 || errorBound <= 0) {
+                Tools.fatalError("The cell size and the error bound of the SpatialSINR model must be positive.");
+            }
+            // for d >= FAR_FIELD_RATIO * r, d^alpha / (d - r)^(alpha + 2) is at most
+            // (FAR_FIELD_RATIO / (FAR_FIELD_RATIO - 1))^(alpha + 2) / d^2
+            double factor = Math.pow(FAR_FIELD_RATIO / (FAR_FIELD_RATIO - 1), alpha + 2);
+            varianceFactor = 0.5 * alpha * (alpha + 1) * factor / errorBound;
+            grid = new TransmitterGrid(cellSize);
+        }
+    }
+
+    @Override
+    public boolean isDisturbed(Packet p) {
+        grid.update(SinalgoRuntime.packetsInTheAir);
+        Node receiver = p.destination;
+        boolean isActive = SinalgoRuntime.packetsInTheAir.isActive(p);
+
+        if (this.isBlocked(p)) {
+            return true;
+        }
+
+        Position receiverPos = receiver.getPosition();
+        double x = receiverPos.xCoord;
+        double y = receiverPos.yCoord;
+        double z = receiverPos.zCoord;
+        double signal = p.intensity * pathLoss.getGain(p.origin.squareDistanceTo(receiver));
+
+        // the cell of p, which does not interfere with itself, and the cell of the
+        // receiver, whose own packets do not interfere
+        boolean is3D = Configuration.dimensions == 3;
+        Position senderPos = p.origin.getPosition();
+        long ownX = grid.getCoordinate(senderPos.xCoord);
+        long ownY = grid.getCoordinate(senderPos.yCoord);
+        long ownZ = is3D ? grid.getCoordinate(senderPos.zCoord) : 0;
+        long receiverX = grid.getCoordinate(x);
+        long receiverY = grid.getCoordinate(y);
+        long receiverZ = is3D ? grid.getCoordinate(z) : 0;
+
+        double noise = ambientNoise;
+        int numLevels = grid.getNumberOfLevels();
+        if (numLevels == 0) {
+            return this.isDisturbed(p, signal, noise);
+        }
+        if (stack.length < 8 * (numLevels + 1)) {
+            stack = new int[8 * (numLevels + 1)];
+            stackLevels = new int[stack.length];
+        }
+        // visit the cells top-down, and open the cells that are close to the receiver
+        int top = 0;
+        int topLevel = numLevels - 1;
+        for (int c = grid.getFirstCell(topLevel), end = grid.getEndOfCells(topLevel); c < end; c++) {
+            stack[top] = c;
+            stackLevels[top++] = topLevel;
+        }
+        while (top > 0) {
+            int c = stack[--top];
+            int level = stackLevels[top];
+            double squareDistance = grid.getSquareDistanceToCell(c, x, y, z);
+            double radius = FAR_FIELD_RATIO * grid.getCellRadius(c);
+            if (squareDistance >= radius * radius && squareDistance >= varianceFactor * grid.getCellVariance(c)
+                    && !grid.contains(c, level, receiverX, receiverY, receiverZ)
+                    && !(isActive && grid.contains(c, level, ownX, ownY, ownZ))) {
+                noise += grid.getCellIntensity(c) * pathLoss.getGain(squareDistance);
+                continue;
+            }
+            if (level > 0) {
+                for (int child = grid.getFirstChild(c); child >= 0; child = grid.getNextSibling(child)) {
+                    stack[top] = child;
+                    stackLevels[top++] = level - 1;
+                }
+                continue;
+            }
+            for (int i = grid.getFirstPacket(c), end = grid.getEndOfPackets(c); i < end; i++) {
+                Packet pack = grid.getPacket(i);
+                if (pack == p || pack.origin.ID == receiver.ID) {
+                    continue; // the interference created from this sender is not considered
+                }
+                noise += pack.intensity * pathLoss.getGain(grid.getSquareDistanceToPacket(i, x, y, z));
+            }
+        }
+
+        return this.isDisturbed(p, signal, noise);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+/**
+ * A path-loss model that looks up the gain of another path-loss model in a
+ * table, which is indexed by the quantized squared distance. Between two
+ * entries of the table, the gain is interpolated linearly.
+ * <p>
+ * The squared distances are quantized logarithmically, by the exponent and the
+ * leading bits of the mantissa of their floating point representation. Each
+ * power of two is thus split into 2^bits steps of equal size, and the relative
+ * error of the interpolation is the same for short and long distances. The
+ * table covers the distances from 2^-8 to 2^24. For other distances, the gain
+ * is computed by the underlying model.
+ * <p>
+ * A table is worthwhile if the gain of the underlying model is expensive to
+ * compute. For the {@link PowerLawPathLoss}, a table is usually slower than the
+ * model itself.
+ */
+public class TabulatedPathLoss implements PathLossModel {
+
+    private static final int MIN_EXPONENT = -16; // of the squared distance
+    private static final int MAX_EXPONENT = 48;
+
+    private final PathLossModel model; // the model to look up
+    private final int shift; // the number of mantissa bits that are interpolated
+    private final double inverseStep; // 2^shift, to scale the interpolated bits to [0, 1)
+    private final long firstIndex; // the shifted bits of 2^MIN_EXPONENT
+    private final double minSquareDistance;
+    private final double maxSquareDistance;
+    private final double[] gains; // the gain at the start of each step, plus one
+
+    /**
+     * @param model The path-loss model to look up.
+     * @param bits  The number of leading mantissa bits by which the squared
+     *              distances are quantized, between 1 and 16.
+     */
+    public TabulatedPathLoss(PathLossModel model, int bits) {
+        this.model = model;
+        this.shift = 52 - bits;
+        this.inverseStep = 1.0 / (1L << shift);
+        this.minSquareDistance = Math.scalb(1.0, MIN_EXPONENT);
+        this.maxSquareDistance = Math.scalb(1.0, MAX_EXPONENT);
+        this.firstIndex = Double.doubleToRawLongBits(minSquareDistance) >>> shift;
+        int size = (int) ((Double.doubleToRawLongBits(maxSquareDistance) >>> shift) - firstIndex) + 1;
+        this.gains = new double[size];
+        for (int i = 0; i < size; i++) {
+            gains[i] = model.getGain(Double.longBitsToDouble((firstIndex + i) << shift));
+        }
+    }
+
+    @Override
+    public double getGain(double squareDistance) {
+        if (!(squareDistance >= minSquareDistance && squareDistance < maxSquareDistance)) {
+            return model.getGain(squareDistance);
+        }
+        long bits = Double.doubleToRawLongBits(squareDistance);
+        int i = (int) ((bits >>> shift) - firstIndex);
+        double fraction = (bits & ((1L << shift) - 1)) * inverseStep;
+        return gains[i] + fraction * (gains[i + 1] - gains[i]);
+    }
+}
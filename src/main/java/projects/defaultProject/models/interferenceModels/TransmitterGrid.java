@@ -0,0 +1,470 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
+
+import java.util.Arrays;
+
+/**
+ * The active packets of a {@link PacketsInTheAirBuffer}, sorted into the cells
+ * of a grid according to the position of their sender, together with a pyramid
+ * of coarser grids. For each occupied cell, the grid stores the total
+ * intensity of the packets sent from within the cell and their center of
+ * intensity (the average position of their senders, weighted by the
+ * intensity), such that the interference of all these packets at a distant
+ * receiver can be approximated at once. To bound the error of this
+ * approximation, each cell also stores how far its senders are spread around
+ * the center of intensity. Used by the {@link SpatialSINR}
+ * interference model.
+ * <p>
+ * The cells of level 0 have the given cell size, and each cell of level k + 1
+ * covers 2 x 2 (x 2) cells of level k. The pyramid ends with the first level
+ * that has at most two cells per dimension. A cell with the integer
+ * coordinates (x, y, z) on level k covers the cells (x', y', z') of level 0
+ * with x' &gt;&gt; k = x, and so on. The cells of a level are stored
+ * consecutively, the packets of a cell of level 0 as well, and the children of
+ * a cell of a higher level are linked through their next sibling.
+ * <p>
+ * The grid is rebuilt whenever the version of the buffer changed, see
+ * {@link PacketsInTheAirBuffer#getVersion()}.
+ */
+class TransmitterGrid {
+
+    private final double cellSize;
+    private final boolean is3D = Configuration.dimensions == 3;
+
+    // the version of the buffer this grid was built for
+    private long version = -1;
+
+    // the active packets sorted by their cell, and the position of their sender
+    private Packet[] packets = new Packet[16];
+    private double[] packetX = new double[16];
+    private double[] packetY = new double[16];
+    private double[] packetZ = new double[16];
+
+    // the occupied cells of all levels: their integer coordinates, their center
+    // of intensity and the total intensity of their packets. For a cell c of
+    // level 0, its packets are at the indices cellStart[c] to cellStart[c + 1] -
+    // 1. For a cell of a higher level, firstChild is its first child and
+    // nextSibling links the further children.
+    private int numCells = 0;
+    private long[] cellCoordX = new long[16];
+    private long[] cellCoordY = new long[16];
+    private long[] cellCoordZ = new long[16];
+    private double[] cellX = new double[16];
+    private double[] cellY = new double[16];
+    private double[] cellZ = new double[16];
+    private double[] cellIntensity = new double[16];
+    // the largest distance between a sender and the center of intensity, and the
+    // average squared distance weighted by the intensity
+    private double[] cellRadius = new double[16];
+    private double[] cellVariance = new double[16];
+    private int[] cellStart = new int[17];
+    private int[] firstChild = new int[16];
+    private int[] nextSibling = new int[16];
+
+    // the cells of level k are the cells levelStart[k] to levelStart[k + 1] - 1
+    private int numLevels = 0;
+    private int[] levelStart = new int[65];
+
+    // an open addressing hash table from the coordinates of a cell of the level
+    // that is being built to its index
+    private int[] tableCells = new int[32];
+
+    /**
+     * @param cellSize The side length of the cells of level 0.
+     */
+    TransmitterGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @return The side length of the cells of level 0.
+     */
+    double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Rebuilds this grid if the packets in the air changed since this grid was
+     * built.
+     *
+     * @param buffer The packets in the air.
+     */
+    void update(PacketsInTheAirBuffer buffer) {
+        if (buffer.getVersion() != version) {
+            this.build(buffer);
+            version = buffer.getVersion();
+        }
+    }
+
+    private void build(PacketsInTheAirBuffer buffer) {
+        int numPackets = buffer.size();
+        if (packets.length < numPackets) {
+            int length = Math.max(numPackets, 2 * packets.length);
+            packets = new Packet[length];
+            packetX = new double[length];
+            packetY = new double[length];
+            packetZ = new double[length];
+        } else {
+            Arrays.fill(packets, null);
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, 2 * numPackets)) * 2;
+        if (tableCells.length != capacity) {
+            tableCells = new int[capacity];
+        }
+        numCells = 0;
+        numLevels = 0;
+        levelStart[0] = 0;
+        if (numPackets == 0) {
+            levelStart[1] = 0;
+            return;
+        }
+
+        // determine the cell of each packet, and count the packets per cell
+        Arrays.fill(tableCells, -1);
+        cellStart[0] = 0;
+        Packet[] unsorted = new Packet[numPackets];
+        int[] cellOfPacket = new int[numPackets];
+        int i = 0;
+        for (Packet p : buffer) {
+            unsorted[i] = p;
+            Position pos = p.origin.getPosition();
+            long x = this.getCoordinate(pos.xCoord);
+            long y = this.getCoordinate(pos.yCoord);
+            long z = is3D ? this.getCoordinate(pos.zCoord) : 0;
+            int c = this.findOrAddCell(0, x, y, z);
+            cellOfPacket[i] = c;
+            cellStart[c + 1]++;
+            cellIntensity[c] += p.intensity;
+            i++;
+        }
+        // sort the packets by their cell
+        for (int c = 0; c < numCells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = Arrays.copyOf(cellStart, numCells);
+        for (i = 0; i < numPackets; i++) {
+            int c = cellOfPacket[i];
+            int j = next[c]++;
+            Packet p = unsorted[i];
+            Position pos = p.origin.getPosition();
+            packets[j] = p;
+            packetX[j] = pos.xCoord;
+            packetY[j] = pos.yCoord;
+            packetZ[j] = pos.zCoord;
+            cellX[c] += p.intensity * pos.xCoord;
+            cellY[c] += p.intensity * pos.yCoord;
+            cellZ[c] += p.intensity * pos.zCoord;
+        }
+        for (int c = 0; c < numCells; c++) {
+            if (cellIntensity[c] > 0) {
+                cellX[c] /= cellIntensity[c];
+                cellY[c] /= cellIntensity[c];
+                cellZ[c] /= cellIntensity[c];
+            } else { // use the position of the first sender
+                int j = cellStart[c];
+                cellX[c] = packetX[j];
+                cellY[c] = packetY[j];
+                cellZ[c] = packetZ[j];
+            }
+        }
+        for (int c = 0; c < numCells; c++) {
+            for (int j = cellStart[c]; j < cellStart[c + 1]; j++) {
+                double squareDistance = this.getSquareDistanceToCell(c, packetX[j], packetY[j], packetZ[j]);
+                cellRadius[c] = Math.max(cellRadius[c], Math.sqrt(squareDistance));
+                cellVariance[c] += packets[j].intensity * squareDistance;
+            }
+            if (cellIntensity[c] > 0) {
+                cellVariance[c] /= cellIntensity[c];
+            }
+        }
+        numLevels = 1;
+        levelStart[1] = numCells;
+
+        // build the coarser levels until a level has at most two cells per dimension
+        while (!this.isTopLevel(numLevels - 1)) {
+            this.buildLevel(numLevels);
+            numLevels++;
+            levelStart[numLevels] = numCells;
+        }
+    }
+
+    /**
+     * @return True if the cells of the given level have at most two different
+     * coordinates per dimension, such that the next level would not reduce
+     * the number of cells anymore.
+     */
+    private boolean isTopLevel(int level) {
+        if (level + 1 == levelStart.length - 1) {
+            return true;
+        }
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, minZ = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE, maxZ = Long.MIN_VALUE;
+        for (int c = levelStart[level]; c < levelStart[level + 1]; c++) {
+            minX = Math.min(minX, cellCoordX[c]);
+            minY = Math.min(minY, cellCoordY[c]);
+            minZ = Math.min(minZ, cellCoordZ[c]);
+            maxX = Math.max(maxX, cellCoordX[c]);
+            maxY = Math.max(maxY, cellCoordY[c]);
+            maxZ = Math.max(maxZ, cellCoordZ[c]);
+        }
+        return maxX - minX <= 1 && maxY - minY <= 1 && maxZ - minZ <= 1;
+    }
+
+    /**
+     * Adds the cells of a level above level 0, and sums up the intensities and
+     * centers of intensity of their children.
+     */
+    private void buildLevel(int level) {
+        Arrays.fill(tableCells, -1);
+        for (int child = levelStart[level - 1], end = levelStart[level]; child < end; child++) {
+            int c = this.findOrAddCell(level, cellCoordX[child] >> 1, cellCoordY[child] >> 1,
+                    cellCoordZ[child] >> 1);
+            double s = cellIntensity[child];
+            cellIntensity[c] += s;
+            cellX[c] += s * cellX[child];
+            cellY[c] += s * cellY[child];
+            cellZ[c] += s * cellZ[child];
+            nextSibling[child] = firstChild[c];
+            firstChild[c] = child;
+        }
+        for (int c = levelStart[level]; c < numCells; c++) {
+            if (cellIntensity[c] > 0) {
+                cellX[c] /= cellIntensity[c];
+                cellY[c] /= cellIntensity[c];
+                cellZ[c] /= cellIntensity[c];
+            } else { // use the center of the first child
+                int child = firstChild[c];
+                cellX[c] = cellX[child];
+                cellY[c] = cellY[child];
+                cellZ[c] = cellZ[child];
+            }
+            for (int child = firstChild[c]; child >= 0; child = nextSibling[child]) {
+                double squareDistance = this.getSquareDistanceToCell(c, cellX[child], cellY[child], cellZ[child]);
+                cellRadius[c] = Math.max(cellRadius[c], Math.sqrt(squareDistance) + cellRadius[child]);
+                cellVariance[c] += cellIntensity[child] * (cellVariance[child] + squareDistance);
+            }
+            if (cellIntensity[c] > 0) {
+                cellVariance[c] /= cellIntensity[c];
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the cell with the given coordinates on the level that
+     * is being built, and adds the cell if necessary.
+     */
+    private int findOrAddCell(int level, long x, long y, long z) {
+        int mask = tableCells.length - 1;
+        int slot = hash(x, y, z, mask);
+        for (int c = tableCells[slot]; c >= 0; c = tableCells[slot]) {
+            if (cellCoordX[c] == x && cellCoordY[c] == y && cellCoordZ[c] == z) {
+                return c;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int c = numCells++;
+        if (c == cellCoordX.length) {
+            int length = 2 * c;
+            cellCoordX = Arrays.copyOf(cellCoordX, length);
+            cellCoordY = Arrays.copyOf(cellCoordY, length);
+            cellCoordZ = Arrays.copyOf(cellCoordZ, length);
+            cellX = Arrays.copyOf(cellX, length);
+            cellY = Arrays.copyOf(cellY, length);
+            cellZ = Arrays.copyOf(cellZ, length);
+            cellIntensity = Arrays.copyOf(cellIntensity, length);
+            cellRadius = Arrays.copyOf(cellRadius, length);
+            cellVariance = Arrays.copyOf(cellVariance, length);
+            cellStart = Arrays.copyOf(cellStart, length + 1);
+            firstChild = Arrays.copyOf(firstChild, length);
+            nextSibling = Arrays.copyOf(nextSibling, length);
+        }
+        cellCoordX[c] = x;
+        cellCoordY[c] = y;
+        cellCoordZ[c] = z;
+        cellX[c] = 0;
+        cellY[c] = 0;
+        cellZ[c] = 0;
+        cellIntensity[c] = 0;
+        cellRadius[c] = 0;
+        cellVariance[c] = 0;
+        if (level == 0) {
+            cellStart[c + 1] = 0;
+        }
+        firstChild[c] = -1;
+        nextSibling[c] = -1;
+        tableCells[slot] = c;
+        return c;
+    }
+
+    private static int hash(long x, long y, long z, int mask) {
+        long h = (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (z * 0x165667B19E3779F9L);
+        return (int) (h ^ (h >>> 32) ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the integer coordinate of the cell of level 0 that contains the
+     * given coordinate.
+     */
+    long getCoordinate(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * @return The number of levels of the pyramid, 0 if there are no active
+     * packets.
+     */
+    int getNumberOfLevels() {
+        return numLevels;
+    }
+
+    /**
+     * @param level A level of the pyramid.
+     * @return The index of the first cell of the level.
+     */
+    int getFirstCell(int level) {
+        return levelStart[level];
+    }
+
+    /**
+     * @param level A level of the pyramid.
+     * @return The index after the last cell of the level.
+     */
+    int getEndOfCells(int level) {
+        return levelStart[level + 1];
+    }
+
+    /**
+     * Tests whether a cell of the given level contains the cell of level 0 with
+     * the given coordinates.
+     */
+    boolean contains(int c, int level, long x, long y, long z) {
+        return cellCoordX[c] == x >> level && cellCoordY[c] == y >> level && cellCoordZ[c] == z >> level;
+    }
+
+    /**
+     * @param c The index of an occupied cell above level 0.
+     * @return The index of the first child of the cell.
+     */
+    int getFirstChild(int c) {
+        return firstChild[c];
+    }
+
+    /**
+     * @param c The index of an occupied cell below the top level.
+     * @return The index of the next child of the same parent, -1 if there is none.
+     */
+    int getNextSibling(int c) {
+        return nextSibling[c];
+    }
+
+    /**
+     * @param c The index of an occupied cell.
+     * @return The total intensity of the packets sent from within the cell.
+     */
+    double getCellIntensity(int c) {
+        return cellIntensity[c];
+    }
+
+    /**
+     * @param c The index of an occupied cell.
+     * @return An upper bound on the distance between the senders of the cell and
+     * their center of intensity.
+     */
+    double getCellRadius(int c) {
+        return cellRadius[c];
+    }
+
+    /**
+     * @param c The index of an occupied cell.
+     * @return The average squared distance between the senders of the cell and
+     * their center of intensity, weighted by their intensity.
+     */
+    double getCellVariance(int c) {
+        return cellVariance[c];
+    }
+
+    /**
+     * Returns the squared distance between the center of intensity of a cell and
+     * a position.
+     */
+    double getSquareDistanceToCell(int c, double x, double y, double z) {
+        double dx = cellX[c] - x;
+        double dy = cellY[c] - y;
+        double dz = cellZ[c] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @param c The index of an occupied cell of level 0.
+     * @return The index of the first packet of the cell.
+     */
+    int getFirstPacket(int c) {
+        return cellStart[c];
+    }
+
+    /**
+     * @param c The index of an occupied cell of level 0.
+     * @return The index after the last packet of the cell.
+     */
+    int getEndOfPackets(int c) {
+        return cellStart[c + 1];
+    }
+
+    /**
+     * @param i The index of a packet.
+     * @return The packet.
+     */
+    Packet getPacket(int i) {
+        return packets[i];
+    }
+
+    /**
+     * Returns the squared distance between the sender of a packet and a position.
+     */
+    double getSquareDistanceToPacket(int i, double x, double y, double z) {
+        double dx = packetX[i] - x;
+        double dy = packetY[i] - y;
+        double dz = packetZ[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
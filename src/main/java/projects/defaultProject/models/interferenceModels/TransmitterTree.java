@@ -0,0 +1,371 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
+
+import java.util.Arrays;
+
+/**
+ * The active packets of a {@link PacketsInTheAirBuffer}, sorted into a quadtree
+ * (or an octree in 3D) according to the position of their sender. Each tree
+ * node covers a square (cube) and stores the total intensity of the packets
+ * sent from within it and their center of intensity, such that the
+ * interference of all these packets at a distant receiver can be approximated
+ * at once. Used by the {@link BarnesHutSINR} interference model.
+ * <p>
+ * The tree nodes are stored in arrays. The packets of a tree node are stored
+ * consecutively, and the children of a tree node are stored consecutively as
+ * well. A tree node with at most {@link #LEAF_SIZE} packets is a leaf.
+ * <p>
+ * The tree is rebuilt whenever the version of the buffer changed, see
+ * {@link PacketsInTheAirBuffer#getVersion()}.
+ */
+class TransmitterTree {
+
+    static final int LEAF_SIZE = 8;
+
+    // beyond this depth, the senders are (almost) at the same position
+    private static final int MAX_DEPTH = 40;
+
+    private final int numOctants = Configuration.dimensions == 3 ? 8 : 4;
+
+    // the version of the buffer this tree was built for
+    private long version = -1;
+
+    // the active packets sorted by their tree node, and the position of their
+    // sender
+    private Packet[] packets = new Packet[16];
+    private double[] packetX = new double[16];
+    private double[] packetY = new double[16];
+    private double[] packetZ = new double[16];
+    private Packet[] buffer = new Packet[16]; // used while sorting the packets
+    private int[] octantOfPacket = new int[16];
+
+    // the tree nodes: the corner with the smallest coordinates and the side
+    // length of their square, their center of intensity, the total intensity of
+    // their packets, the range of their packets, and their first child (-1 for
+    // a leaf). The root is the tree node 0.
+    private int numNodes = 0;
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] minZ = new double[16];
+    private double[] side = new double[16];
+    private double[] centerX = new double[16];
+    private double[] centerY = new double[16];
+    private double[] centerZ = new double[16];
+    private double[] intensity = new double[16];
+    private int[] first = new int[16];
+    private int[] end = new int[16];
+    private int[] firstChild = new int[16];
+
+    /**
+     * Rebuilds this tree if the packets in the air changed since this tree was
+     * built.
+     *
+     * @param buffer The packets in the air.
+     */
+    void update(PacketsInTheAirBuffer buffer) {
+        if (buffer.getVersion() != version) {
+            this.build(buffer);
+            version = buffer.getVersion();
+        }
+    }
+
+    private void build(PacketsInTheAirBuffer air) {
+        int numPackets = air.size();
+        if (packets.length < numPackets) {
+            int length = Math.max(numPackets, 2 * packets.length);
+            packets = new Packet[length];
+            packetX = new double[length];
+            packetY = new double[length];
+            packetZ = new double[length];
+            buffer = new Packet[length];
+            octantOfPacket = new int[length];
+        } else {
+            Arrays.fill(packets, null);
+        }
+        numNodes = 0;
+
+        double lowX = Double.POSITIVE_INFINITY, lowY = lowX, lowZ = lowX;
+        double highX = Double.NEGATIVE_INFINITY, highY = highX, highZ = highX;
+        int i = 0;
+        for (Packet p : air) {
+            packets[i++] = p;
+            Position pos = p.origin.getPosition();
+            lowX = Math.min(lowX, pos.xCoord);
+            lowY = Math.min(lowY, pos.yCoord);
+            lowZ = Math.min(lowZ, pos.zCoord);
+            highX = Math.max(highX, pos.xCoord);
+            highY = Math.max(highY, pos.yCoord);
+            highZ = Math.max(highZ, pos.zCoord);
+        }
+        if (numPackets == 0) {
+            return;
+        }
+        double size = Math.max(highX - lowX, highY - lowY);
+        if (numOctants == 8) {
+            size = Math.max(size, highZ - lowZ);
+        }
+        this.addNode(lowX, lowY, lowZ, size, 0, numPackets);
+        this.split(0, 0);
+        for (i = 0; i < numPackets; i++) {
+            Position pos = packets[i].origin.getPosition();
+            packetX[i] = pos.xCoord;
+            packetY[i] = pos.yCoord;
+            packetZ[i] = pos.zCoord;
+        }
+        this.summarize(0);
+    }
+
+    private int addNode(double x, double y, double z, double size, int from, int to) {
+        int n = numNodes++;
+        if (n == side.length) {
+            int length = 2 * n;
+            minX = Arrays.copyOf(minX, length);
+            minY = Arrays.copyOf(minY, length);
+            minZ = Arrays.copyOf(minZ, length);
+            side = Arrays.copyOf(side, length);
+            centerX = Arrays.copyOf(centerX, length);
+            centerY = Arrays.copyOf(centerY, length);
+            centerZ = Arrays.copyOf(centerZ, length);
+            intensity = Arrays.copyOf(intensity, length);
+            first = Arrays.copyOf(first, length);
+            end = Arrays.copyOf(end, length);
+            firstChild = Arrays.copyOf(firstChild, length);
+        }
+        minX[n] = x;
+        minY[n] = y;
+        minZ[n] = z;
+        side[n] = size;
+        first[n] = from;
+        end[n] = to;
+        firstChild[n] = -1;
+        return n;
+    }
+
+    /**
+     * Sorts the packets of a tree node by the octant of their sender, and adds a
+     * child for each octant, recursively, unless the tree node is a leaf. Empty
+     * octants get an empty child.
+     */
+    private void split(int n, int depth) {
+        int from = first[n];
+        int to = end[n];
+        if (to - from <= LEAF_SIZE || depth >= MAX_DEPTH) {
+            return;
+        }
+        double half = side[n] / 2;
+        double midX = minX[n] + half;
+        double midY = minY[n] + half;
+        double midZ = minZ[n] + half;
+        int[] count = new int[numOctants + 1];
+        for (int i = from; i < to; i++) {
+            Position pos = packets[i].origin.getPosition();
+            int octant = (pos.xCoord >= midX ? 1 : 0) | (pos.yCoord >= midY ? 2 : 0)
+                    | (numOctants == 8 && pos.zCoord >= midZ ? 4 : 0);
+            octantOfPacket[i] = octant;
+            count[octant + 1]++;
+        }
+        for (int o = 0; o < numOctants; o++) {
+            count[o + 1] += count[o];
+        }
+        for (int i = from; i < to; i++) {
+            buffer[from + count[octantOfPacket[i]]++] = packets[i];
+        }
+        System.arraycopy(buffer, from, packets, from, to - from);
+
+        int children = numNodes;
+        firstChild[n] = children;
+        int start = from;
+        for (int o = 0; o < numOctants; o++) {
+            // count[o] is now the end of octant o, relative to from
+            this.addNode((o & 1) != 0 ? midX : minX[n], (o & 2) != 0 ? midY : minY[n],
+                    (o & 4) != 0 ? midZ : minZ[n], half, start, from + count[o]);
+            start = from + count[o];
+        }
+        for (int o = 0; o < numOctants; o++) {
+            this.split(children + o, depth + 1);
+        }
+    }
+
+    /**
+     * Determines the total intensity and the center of intensity of a tree node
+     * and its descendants.
+     */
+    private void summarize(int n) {
+        double sum = 0, x = 0, y = 0, z = 0;
+        if (firstChild[n] < 0) {
+            for (int i = first[n]; i < end[n]; i++) {
+                double s = packets[i].intensity;
+                sum += s;
+                x += s * packetX[i];
+                y += s * packetY[i];
+                z += s * packetZ[i];
+            }
+        } else {
+            for (int c = firstChild[n], last = c + numOctants; c < last; c++) {
+                this.summarize(c);
+                double s = intensity[c];
+                sum += s;
+                x += s * centerX[c];
+                y += s * centerY[c];
+                z += s * centerZ[c];
+            }
+        }
+        intensity[n] = sum;
+        if (sum > 0) {
+            centerX[n] = x / sum;
+            centerY[n] = y / sum;
+            centerZ[n] = z / sum;
+        } else { // the center of the square
+            centerX[n] = minX[n] + side[n] / 2;
+            centerY[n] = minY[n] + side[n] / 2;
+            centerZ[n] = minZ[n] + side[n] / 2;
+        }
+    }
+
+    /**
+     * @return The number of tree nodes, 0 if there are no active packets.
+     */
+    int getNumberOfNodes() {
+        return numNodes;
+    }
+
+    /**
+     * @return The number of children of each inner tree node.
+     */
+    int getNumberOfChildren() {
+        return numOctants;
+    }
+
+    /**
+     * @param n A tree node.
+     * @return The index of the first child of the tree node, -1 if it is a leaf.
+     */
+    int getFirstChild(int n) {
+        return firstChild[n];
+    }
+
+    /**
+     * @param n A tree node.
+     * @return The side length of the square covered by the tree node.
+     */
+    double getSide(int n) {
+        return side[n];
+    }
+
+    /**
+     * @param n A tree node.
+     * @return The total intensity of the packets sent from within the tree node.
+     */
+    double getIntensity(int n) {
+        return intensity[n];
+    }
+
+    /**
+     * Returns the squared distance between the center of intensity of a tree node
+     * and a position.
+     */
+    double getSquareDistanceToCenter(int n, double x, double y, double z) {
+        double dx = centerX[n] - x;
+        double dy = centerY[n] - y;
+        double dz = centerZ[n] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Tests whether a position lies within the square of a tree node, including
+     * its boundary. The square is slightly enlarged, such that the senders of
+     * the packets of the tree node are guaranteed to lie within it despite
+     * rounding errors.
+     */
+    boolean contains(int n, double x, double y, double z) {
+        double slack = 1e-12 * (side[n] + Math.abs(minX[n]) + Math.abs(minY[n]) + Math.abs(minZ[n]))
+                + Double.MIN_NORMAL;
+        double low = minX[n] - slack;
+        double high = minX[n] + side[n] + slack;
+        if (x < low || x > high) {
+            return false;
+        }
+        low = minY[n] - slack;
+        high = minY[n] + side[n] + slack;
+        if (y < low || y > high) {
+            return false;
+        }
+        low = minZ[n] - slack;
+        high = minZ[n] + side[n] + slack;
+        return numOctants == 4 || (z >= low && z <= high);
+    }
+
+    /**
+     * @param n A tree node.
+     * @return The index of the first packet of the tree node.
+     */
+    int getFirstPacket(int n) {
+        return first[n];
+    }
+
+    /**
+     * @param n A tree node.
+     * @return The index after the last packet of the tree node.
+     */
+    int getEndOfPackets(int n) {
+        return end[n];
+    }
+
+    /**
+     * @param i The index of a packet.
+     * @return The packet.
+     */
+    Packet getPacket(int i) {
+        return packets[i];
+    }
+
+    /**
+     * Returns the squared distance between the sender of a packet and a position.
+     */
+    double getSquareDistanceToPacket(int i, double x, double y, double z) {
+        double dx = packetX[i] - x;
+        double dy = packetY[i] - y;
+        double dz = packetZ[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
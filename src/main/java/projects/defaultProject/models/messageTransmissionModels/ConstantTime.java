@@ -73,4 +73,9 @@ public class ConstantTime extends MessageTransmissionModel {
     public double timeToReach(Node startNode, Node endNode, Message msg) {
         return time;
     }
+
+    @Override
+    public double getMinimumDelay() {
+        return time;
+    }
 }
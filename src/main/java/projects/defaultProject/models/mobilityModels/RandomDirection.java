@@ -109,6 +109,7 @@ public class RandomDirection extends MobilityModel {
     protected static Random random = Distribution.getRandom(); // a random generator of the framework
 
     private Position moveVector; // The vector that is added in each step to the current position of this node
+    private Position nextPosition = new Position(); // the position returned by getNextPos(), reused in each call
     protected Position currentPosition = null; // the current position, to detect if the node has been moved by other
     // means than this mobility model between successive calls to
     // getNextPos()
@@ -165,7 +166,10 @@ public class RandomDirection extends MobilityModel {
                 double speed = Math.abs(speedDistribution.nextSample()); // units per round
                 initializeNextMove(n, speed, mt + wt - fraction);
             }
-            currentPosition = n.getPosition(); // initially, currentPos is null
+            // initially, currentPos is null. Copy the position, as currentPosition is
+            // modified below.
+            currentPosition = new Position(0, 0, 0);
+            currentPosition.assign(n.getPosition());
             initialize = false;
         }
 
@@ -236,7 +240,8 @@ public class RandomDirection extends MobilityModel {
             }
         } while (reflected);
 
-        Position result = new Position(newx, newy, newz);
+        Position result = nextPosition;
+        result.assign(newx, newy, newz);
 
         if (remaining_hops <= 1) { // was last round of mobility
             // set the next waiting time that executes after this mobility phase
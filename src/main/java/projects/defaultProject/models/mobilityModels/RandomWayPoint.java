@@ -109,6 +109,7 @@ public class RandomWayPoint extends MobilityModel {
     protected Position currentPosition = null; // the current position, to detect if the node has been moved by other
     // means than this mobility model between successive calls to
     // getNextPos()
+    protected Position nextPosition = new Position(); // the position returned by getNextPos(), reused in each call
     protected int remaining_hops = 0; // the remaining hops until a new path has to be determined
     protected int remaining_waitingTime = 0;
 
@@ -125,8 +126,6 @@ public class RandomWayPoint extends MobilityModel {
             currentPosition = new Position(0, 0, 0);
         }
 
-        Position nextPosition = new Position();
-
         // execute the waiting loop
         if (remaining_waitingTime > 0) {
             remaining_waitingTime--;
@@ -90,4 +90,8 @@ public class AntennaConnection extends ConnectivityModelHelper {
         return false;
     }
 
+    @Override
+    public boolean isParallelUpdateSupported() {
+        return true; // isConnected() only reads the types and positions of the nodes
+    }
 }
@@ -213,6 +213,27 @@ public class Configuration {
             + "change their position to increase performance.")
     public static boolean mobility = true;
 
+    /** */
+    @OptionalInConfigFile("If set to true, the connections of a node are only evaluated\n"
+            + "again in the synchronous mode if the node or one of its\n"
+            + "possible neighbors has moved since the previous round, and\n"
+            + "only the pairs of nodes involving a moved node are tested.\n"
+            + "This only applies to the connectivity models that depend on\n"
+            + "the distance between the nodes only, see\n"
+            + "ConnectivityModelHelper.isIncrementalUpdateSupported(). The\n"
+            + "connections of the other nodes are evaluated in every round.\n"
+            + "The connections are then updated sequentially, even if\n"
+            + "parallelRounds is set.")
+    public static boolean incrementalConnectivity = false;
+
+    /** */
+    @OptionalInConfigFile("If set to true, the coordinates of all nodes are kept in\n"
+            + "one array per dimension, next to each other in memory, and\n"
+            + "the distance tests between nodes read them from these arrays.\n"
+            + "The positions of the nodes must then only be changed through\n"
+            + "Node.setPosition().")
+    public static boolean positionStore = false;
+
     /** */
     @DefaultInConfigFile("If set to true, the chosen interference model is called at the\n"
             + "end of every round to test for interferring packets.\n"
@@ -281,6 +302,15 @@ public class Configuration {
             + "on the project specific CustomGlobal whenever the event queue \n" + "becomes empty.")
     public static boolean handleEmptyEventQueue = true;
 
+    /** */
+    @OptionalInConfigFile("This flag only affects the asynchronous simulation mode. \n"
+            + "The minimal time in milliseconds between two notifications of \n"
+            + "the event queue listeners (e.g. the event list of the GUI) while \n"
+            + "the simulation is running. Changes of the queue in between are \n"
+            + "coalesced into a single notification. Set to 0 to notify the \n"
+            + "listeners upon every change.")
+    public static int eventQueueNotificationInterval = 0;
+
     /** */
     @DefaultInConfigFile("The java-command used to start the simulation process.\n"
             + "E.g. 'java', 'nice -n 19 java', 'time java'\n"
@@ -291,6 +321,55 @@ public class Configuration {
     @DefaultInConfigFile("Maximum memory the Java VM is allowed to use (in MB)")
     public static int javaVMmaxMem = 500;
 
+    // -------------------------------------------------------------------------
+    // Parallel execution
+    // -------------------------------------------------------------------------
+
+    /** */
+    @SectionInConfigFile("Parallel execution")
+    @OptionalInConfigFile("If set to true, the nodes update their connections and perform\n"
+            + "their step of a synchronous round in parallel on several worker\n"
+            + "threads. Messages sent during the step are buffered and\n"
+            + "delivered at the end of the step phase in the same order as in\n"
+            + "a sequential round, such that a run with a fixed seed yields the\n"
+            + "same result.\n"
+            + "The step of a node must not modify other nodes or shared state,\n"
+            + "and must not draw from the random number generator of the\n"
+            + "simulation. The message transmission model needs to report a\n"
+            + "positive minimum delay.\n"
+            + "The connections are only determined in parallel for the\n"
+            + "connectivity models whose isConnected() is thread-safe, see\n"
+            + "ConnectivityModelHelper.isParallelUpdateSupported(). Other\n"
+            + "models are evaluated sequentially.\n"
+            + "This flag cannot be combined with interference.")
+    public static boolean parallelRounds = false;
+
+    /** */
+    @OptionalInConfigFile("If set to true, the events of the asynchronous mode are executed\n"
+            + "in parallel on several worker threads. All events that happen\n"
+            + "within the minimum message delay of the message transmission\n"
+            + "model after the next event are executed at once, the events of\n"
+            + "neighboring nodes on the same thread. Messages sent and timers\n"
+            + "started in these events are scheduled afterwards in the same\n"
+            + "order as in a sequential execution.\n"
+            + "The nodes must not modify other nodes or shared state, or draw\n"
+            + "from the random number generator of the simulation when\n"
+            + "handling an event, and should obtain the time through\n"
+            + "Tools.getGlobalTime(). A timer that goes off within this delay\n"
+            + "on a node handled by a different thread, or a global timer,\n"
+            + "ends the window early. If the transmission model does not report\n"
+            + "a minimum delay, only the events that happen at the same time\n"
+            + "are executed in parallel.\n"
+            + "A run may handle a few more events than requested, as timers\n"
+            + "that go off within such a window are always executed with it.\n"
+            + "This flag cannot be combined with interference.")
+    public static boolean parallelEvents = false;
+
+    /** */
+    @OptionalInConfigFile("The number of worker threads used for parallel execution.\n"
+            + "Set to 0 to use one thread per available processor.")
+    public static int numberOfWorkerThreads = 0;
+
     // -------------------------------------------------------------------------
     // Seed for random number generator
     // -------------------------------------------------------------------------
@@ -464,13 +543,44 @@ public class Configuration {
     public static String guiPositionTransformation3D = "sinalgo.gui.transformation.Transformation3D";
 
     /** */
-    @OptionalInConfigFile("Node collection implementation for 2D.")
+    @OptionalInConfigFile("Node collection implementation for 2D. The framework provides\n"
+            + "sinalgo.runtime.nodeCollection.Geometric2DNodeCollection (a list\n"
+            + "of nodes per grid cell) and\n"
+            + "sinalgo.runtime.nodeCollection.FlatGrid2DNodeCollection (the grid\n"
+            + "in flat arrays, faster for large networks),\n"
+            + "sinalgo.runtime.nodeCollection.Hierarchical2DNodeCollection\n"
+            + "(several grids, for nodes with different ranges),\n"
+            + "sinalgo.runtime.nodeCollection.Sparse2DNodeCollection (only the\n"
+            + "occupied grid cells, for huge deployment areas) and\n"
+            + "sinalgo.runtime.nodeCollection.KdTreeNodeCollection (a k-d tree).")
     public static String nodeCollection2D = "sinalgo.runtime.nodeCollection.Geometric2DNodeCollection";
 
     /** */
-    @OptionalInConfigFile("Node collection implementation for 3D.")
+    @OptionalInConfigFile("Node collection implementation for 3D. The framework provides\n"
+            + "sinalgo.runtime.nodeCollection.Geometric3DNodeCollection (a list\n"
+            + "of nodes per grid cell),\n"
+            + "sinalgo.runtime.nodeCollection.Sparse3DNodeCollection (only the\n"
+            + "occupied grid cells, for sparse deployments in a large volume) and\n"
+            + "sinalgo.runtime.nodeCollection.KdTreeNodeCollection (a k-d tree).")
     public static String nodeCollection3D = "sinalgo.runtime.nodeCollection.Geometric3DNodeCollection";
 
+    /** */
+    @OptionalInConfigFile("Implementation of the event queue used in the asynchronous\n"
+            + "simulation mode. The framework provides\n"
+            + "sinalgo.runtime.events.HeapEventStorage (a 4-ary heap),\n"
+            + "sinalgo.runtime.events.CalendarQueueEventStorage (a calendar\n"
+            + "queue, fast for evenly distributed event times) and\n"
+            + "sinalgo.runtime.events.TreeSetEventStorage (a red-black tree).")
+    public static String eventQueueStorage = "sinalgo.runtime.events.HeapEventStorage";
+
+    /** */
+    @OptionalInConfigFile("Implementation of the outgoing connections of the nodes.\n"
+            + "The framework provides sinalgo.nodes.NodeOutgoingConnectionsList\n"
+            + "(a linked list, lookups are linear in the number of neighbors)\n"
+            + "and sinalgo.nodes.HashedOutgoingConnectionsList (a linked list\n"
+            + "with a hash index on the end node, for dense networks).")
+    public static String outgoingConnections = "sinalgo.nodes.NodeOutgoingConnectionsList";
+
     // -------------------------------------------------------------------------
     // Export Settings
     // -------------------------------------------------------------------------
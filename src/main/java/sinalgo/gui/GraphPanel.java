@@ -942,6 +942,7 @@ public class GraphPanel extends JPanel {
                             try {
                                 // the user added a edge from nodeToAddEdge to targetNode
                                 nodeToAddEdge.outgoingConnections.add(nodeToAddEdge, targetNode, false);
+                                nodeToAddEdge.invalidateConnections();
                             } catch (WrongConfigurationException wCE) {
                                 JOptionPane.showMessageDialog(parent, wCE.getMessage(), "Configuration Error",
                                         JOptionPane.ERROR_MESSAGE);
@@ -1193,7 +1194,7 @@ public class GraphPanel extends JPanel {
             // react to pressing escape
             if (e.getKeyCode() == java.awt.event.KeyEvent.VK_ESCAPE) {
                 if (nodeToDrag != null) { // stop dragging a node, and undo
-                    nodeToDrag.getPosition().assign(nodeToDragInitialPosition);
+                    nodeToDrag.setPosition(nodeToDragInitialPosition);
                     nodeToDragDrawCoordCube = null;
                     nodeToDrag = null;
                     parent.redrawGUI(); // node position has changed, full repaint
@@ -403,8 +403,10 @@ public class GenerateNodesDialog extends JDialog implements ActionListener, Prog
                 Node node = generateNode(distribution.getNextPosition());
 
                 if (canceled) {
+                    node.releasePositionSlot();
                     for (Node n : addedNodes) {
                         SinalgoRuntime.nodes.removeNode(n);
+                        n.releasePositionSlot();
                         i--;
                         pf.setPercentage(100.0d * ((double) i / (double) numberOfNodes));
                     }
@@ -291,26 +291,18 @@ public class NodeInfoDialog extends JDialog implements ActionListener, PropertyC
                 parent.redrawGUINow(); // needs blocking redrawing
                 break;
             case "Next Node": {
-                Enumeration<Node> nodesEnumer = SinalgoRuntime.nodes.getNodeEnumeration();
-                while (nodesEnumer.hasMoreElements()) {
-                    Node nd = nodesEnumer.nextElement();
-                    if (nd.ID == node.ID + 1) {
-                        nodeNumber.setValue(nd.ID);
-                        // this triggers a property change event.
-                        break;
-                    }
+                Node nd = SinalgoRuntime.nodes.getNodeByID(node.ID + 1);
+                if (nd != null) {
+                    nodeNumber.setValue(nd.ID);
+                    // this triggers a property change event.
                 }
                 break;
             }
             case "Previous Node": {
-                Enumeration<Node> nodesEnumer = SinalgoRuntime.nodes.getNodeEnumeration();
-                while (nodesEnumer.hasMoreElements()) {
-                    Node nd = nodesEnumer.nextElement();
-                    if (nd.ID == node.ID - 1) {
-                        nodeNumber.setValue(nd.ID);
-                        // this triggers a property change event.
-                        break;
-                    }
+                Node nd = SinalgoRuntime.nodes.getNodeByID(node.ID - 1);
+                if (nd != null) {
+                    nodeNumber.setValue(nd.ID);
+                    // this triggers a property change event.
                 }
                 break;
             }
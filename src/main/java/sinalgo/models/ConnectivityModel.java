@@ -61,4 +61,22 @@ public abstract class ConnectivityModel extends Model {
      *                                     of edges does not fit the type of nodes.
      */
     public abstract boolean updateConnections(Node n) throws WrongConfigurationException;
+
+    /**
+     * Returns the maximum distance between the given node and any node it may be
+     * connected to with this connectivity model. Node collections that support a
+     * different range for each node (e.g. the Hierarchical2DNodeCollection) use
+     * this value to restrict the possible neighbors of the node.
+     * <p>
+     * The default implementation returns a negative value, which indicates that
+     * the range is not known. In this case, the node collection assumes the range
+     * to be GeometricNodeCollection/rMax.
+     *
+     * @param n The node that uses this connectivity model.
+     * @return The maximum range of the given node, a negative value if it is not
+     * known.
+     */
+    public double getMaximumRange(Node n) {
+        return -1;
+    }
 }
@@ -38,9 +38,12 @@ package sinalgo.models;
 
 import sinalgo.exception.WrongConfigurationException;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.SinalgoRuntime;
 
 import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
 
 /**
  * A helper class that helps you implement the connectivity model. This class
@@ -59,6 +62,29 @@ import java.util.Enumeration;
  */
 public abstract class ConnectivityModelHelper extends ConnectivityModel {
 
+    // for each subclass, whether it overrides the updateConnections(Node) method
+    private static Hashtable<Class<?>, Boolean> overridesUpdateConnections = new Hashtable<>();
+
+    // whether this model uses the updateConnections(Node) method of this class
+    private final boolean usesDefaultUpdate;
+
+    /**
+     * The default constructor of the ConnectivityModelHelper.
+     */
+    protected ConnectivityModelHelper() {
+        Boolean overrides = overridesUpdateConnections.get(getClass());
+        if (overrides == null) {
+            try {
+                overrides = getClass().getMethod("updateConnections", Node.class)
+                        .getDeclaringClass() != ConnectivityModelHelper.class;
+            } catch (NoSuchMethodException e) {
+                overrides = true;
+            }
+            overridesUpdateConnections.put(getClass(), overrides);
+        }
+        usesDefaultUpdate = !overrides;
+    }
+
     @Override
     public boolean updateConnections(Node n) throws WrongConfigurationException {
         boolean edgeAdded = false;
@@ -95,6 +121,150 @@ public abstract class ConnectivityModelHelper extends ConnectivityModel {
         return edgeAdded || dyingLinks; // return whether an edge has been added or removed.
     }
 
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Performs the first part of
+     * {@link #updateConnections(Node)} when the connections of the nodes are
+     * updated in parallel: Sets the valid flag of all outgoing edges of the given
+     * node that still exist, and collects the neighbors to which a new edge needs
+     * to be added.
+     * <p>
+     * This method only modifies the valid flag of the outgoing edges of the given
+     * node, and may therefore be called concurrently for different nodes.
+     *
+     * @param n            The node whose connections are updated.
+     * @param newNeighbors The list to which the nodes are appended that are connected
+     *                     to n, but to which n has no outgoing edge yet.
+     */
+    public final void collectConnections(Node n, List<Node> newNeighbors) {
+        Enumeration<Node> pNE = SinalgoRuntime.nodes.getPossibleNeighborsEnumeration(n);
+        while (pNE.hasMoreElements()) {
+            Node possibleNeighbor = pNE.nextElement();
+            if (n.ID != possibleNeighbor.ID && isConnected(n, possibleNeighbor)) {
+                if (!n.outgoingConnections.containsAndSetVisited(n, possibleNeighbor, true)) {
+                    newNeighbors.add(possibleNeighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Completes the update of the connections of a node started
+     * with {@link #collectConnections(Node, List)}: Adds the edges to the new
+     * neighbors and removes all edges that are not valid anymore.
+     * <p>
+     * This method must not be called concurrently, as adding and removing edges
+     * may affect other nodes as well.
+     *
+     * @param n            The node whose connections are updated.
+     * @param newNeighbors The neighbors collected by
+     *                     {@link #collectConnections(Node, List)}.
+     * @return True if an edge has been added or removed, otherwise false.
+     * @throws WrongConfigurationException When the type of edges does not fit the type of nodes.
+     */
+    public final boolean addConnections(Node n, List<Node> newNeighbors) throws WrongConfigurationException {
+        boolean edgeAdded = false;
+        for (Node neighbor : newNeighbors) {
+            // The edge may have been added in the meantime, e.g. by a bidirectional edge
+            // of the neighbor. In this case, add() only sets its valid flag.
+            edgeAdded = !n.outgoingConnections.add(n, neighbor, true) || edgeAdded;
+        }
+        boolean dyingLinks = n.outgoingConnections.removeInvalidLinks();
+        return edgeAdded || dyingLinks;
+    }
+
+    /**
+     * Indicates whether the connections of the nodes using this connectivity model
+     * may be determined in parallel, i.e. whether {@link #isConnected(Node, Node)}
+     * may be called concurrently for different nodes. This is only used if
+     * <code>parallelRounds</code> is enabled in the configuration file.
+     * <p>
+     * By default, this method returns false. Overwrite this method to return true
+     * if isConnected() is thread-safe, i.e. if it neither modifies nor reads any
+     * shared state that changes, and does not use random numbers. A subclass that
+     * overrides {@link #updateConnections(Node)} is always updated sequentially.
+     *
+     * @return True if the connections may be determined in parallel, otherwise
+     * false.
+     */
+    public boolean isParallelUpdateSupported() {
+        return false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b>
+     *
+     * @return True if the connections of the nodes using this connectivity model
+     * are determined in parallel with {@link #collectConnections(Node, List)},
+     * i.e. if this model supports it and uses the default
+     * {@link #updateConnections(Node)}.
+     */
+    public final boolean usesParallelUpdate() {
+        return usesDefaultUpdate && this.isParallelUpdateSupported();
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Re-evaluates the connection from one node to another node
+     * only, and adds or removes the edge accordingly. This is used to update the
+     * connections incrementally when <code>incrementalConnectivity</code> is
+     * enabled in the configuration file.
+     * <p>
+     * An added edge has its valid flag set to false, as all edges after the
+     * connections have been updated.
+     *
+     * @param from The start node of the connection.
+     * @param to   The end node of the connection.
+     * @return True if an edge has been added or removed, otherwise false.
+     * @throws WrongConfigurationException When the type of edges does not fit the type of nodes.
+     */
+    public final boolean updateConnection(Node from, Node to) throws WrongConfigurationException {
+        if (isConnected(from, to)) {
+            return !from.outgoingConnections.add(from, to, false);
+        }
+        Edge e = from.outgoingConnections.remove(from, to);
+        if (e != null) {
+            e.free();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether the connections of the nodes using this connectivity model
+     * may be updated incrementally, i.e. whether {@link #isConnected(Node, Node)}
+     * only depends on the positions of the two nodes (and other properties of the
+     * nodes that do not change). This is only used if
+     * <code>incrementalConnectivity</code> is enabled in the configuration file.
+     * In this case, the connection between two nodes is only evaluated again if
+     * one of them has moved.
+     * <p>
+     * By default, this method returns false. Overwrite this method to return true
+     * if isConnected() only depends on the distance between the nodes, and not on
+     * other state such as random numbers or the time. A subclass that overrides
+     * {@link #updateConnections(Node)} is never updated incrementally.
+     *
+     * @return True if the connections may be updated incrementally, otherwise
+     * false.
+     */
+    public boolean isIncrementalUpdateSupported() {
+        return false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b>
+     *
+     * @return True if the connections of the nodes using this connectivity model
+     * are updated incrementally, i.e. if this model supports it and uses the
+     * default {@link #updateConnections(Node)}.
+     */
+    public final boolean usesIncrementalUpdate() {
+        return usesDefaultUpdate && this.isIncrementalUpdateSupported();
+    }
+
     /**
      * Function to find out, if two nodes are connected when evaluating the current
      * Connectivity Model. The connectivity is always checked only in one direction.
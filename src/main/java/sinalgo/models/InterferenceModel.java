@@ -67,6 +67,61 @@ public abstract class InterferenceModel extends Model {
      */
     public abstract boolean isDisturbed(Packet p);
 
+    /**
+     * Indicates whether this interference model supports incremental updates.
+     * <p>
+     * In asynchronous mode, if the interference is not additive, all packets in
+     * the air are tested for interference whenever a packet is added or removed.
+     * If the interference model of the destination of a packet supports
+     * incremental updates, the framework instead keeps the sum of the
+     * interference caused by all other packets at the destination, see
+     * {@link Packet#interference}. The sum is updated when a packet is added or
+     * removed, and the packet is tested by calling
+     * {@link #isDisturbed(Packet, double)}.
+     * <p>
+     * This requires the interference caused by the packets in the air to be
+     * additive and independent of each other, and to only depend on the packets
+     * and the positions of the nodes. When a node moves while packets are being
+     * sent, the sums are recomputed. Furthermore, a packet that was not disturbed
+     * must not become disturbed when the interference decreases.
+     *
+     * @return True if this model implements {@link #getInterference(Packet, Packet)}
+     * and {@link #isDisturbed(Packet, double)}, false otherwise.
+     */
+    public boolean isIncrementalUpdateSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the interference that a packet in the air causes at the destination
+     * of another packet. Only called if {@link #isIncrementalUpdateSupported()}
+     * returns true.
+     *
+     * @param p      The packet whose destination uses this interference model.
+     * @param source Another packet in the air that actively contributes to
+     *               interference.
+     * @return The interference caused by the source packet at the destination of
+     * p, or Double.POSITIVE_INFINITY if the source packet prevents p from being
+     * received altogether.
+     */
+    public double getInterference(Packet p, Packet source) {
+        return 0;
+    }
+
+    /**
+     * Determines whether a packet is disturbed, given the sum of the interference
+     * caused by all other packets in the air. Only called if
+     * {@link #isIncrementalUpdateSupported()} returns true.
+     *
+     * @param p            The packet to check.
+     * @param interference The sum of the interference caused by the other packets
+     *                     in the air at the destination of p.
+     * @return True if the message is disturbed, otherwise false.
+     */
+    public boolean isDisturbed(Packet p, double interference) {
+        return this.isDisturbed(p);
+    }
+
     @Override
     public final ModelType getType() {
         return ModelType.InterferenceModel;
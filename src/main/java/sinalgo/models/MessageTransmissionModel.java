@@ -61,6 +61,22 @@ public abstract class MessageTransmissionModel extends Model {
      */
     public abstract double timeToReach(Node startNode, Node endNode, Message msg);
 
+    /**
+     * Returns a lower bound on the time any message takes to arrive at its
+     * destination, i.e., a value that is never larger than the time returned by
+     * {@link #timeToReach(Node, Node, Message)}.
+     * <p>
+     * In asynchronous mode, the events that happen within this time may be
+     * executed in parallel, see the <code>parallelEvents</code> flag of the
+     * configuration. The default implementation returns 0, such that only the
+     * events that happen at the same time are executed in parallel.
+     *
+     * @return The minimum time a message takes to arrive at its destination.
+     */
+    public double getMinimumDelay() {
+        return 0;
+    }
+
     @Override
     public final ModelType getType() {
         return ModelType.MessageTransmissionModel;
@@ -53,6 +53,11 @@ public abstract class MobilityModel extends Model {
      * This method returns the next position of a node. It is called from the system
      * to update the position of the nodes during the update pass of a round.
      *
+     * <p>
+     * The framework copies the coordinates of the returned position into the
+     * position of the node. Therefore, a mobility model may return the same
+     * position object in each call instead of allocating a new one.
+     *
      * @param n The node to get the next position for.
      * @return The next position oth the given node.
      */
@@ -105,6 +105,41 @@ public interface Connections extends Iterable<Edge> {
      */
     boolean contains(Node startNode, Node endNode);
 
+    /**
+     * Tests whether there is an edge from the start node to the end node, and if
+     * so, sets the valid flag of this edge to the given value.
+     *
+     * @param startNode The startNode of the Edge to search for.
+     * @param endNode   The endNode of the Edge to search for.
+     * @param valid     The value the valid flag of the edge is set to, if the edge is
+     *                  contained in the collection.
+     * @return Returns whether there is an edge in the collection from the start
+     * node to the end node.
+     */
+    boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid);
+
+    /**
+     * Returns the edge from the start node to the end node. Like the contains
+     * method, this method does not search for the same instance but for the same
+     * start and end node.
+     * <p>
+     * The default implementation traverses the collection; implementations that
+     * index their edges should override this method.
+     *
+     * @param startNode The startNode of the Edge to search for.
+     * @param endNode   The endNode of the Edge to search for.
+     * @return The edge from the start node to the end node, null if there is no
+     * such edge in the collection.
+     */
+    default Edge getEdge(Node startNode, Node endNode) {
+        for (Edge e : this) {
+            if ((e.startNode.ID == startNode.ID) && (e.endNode.ID == endNode.ID)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
     /**
      * Removes all edges whose valid flag is set to false. For all remaining edges
      * (the edges whose valid flag was set to true upon calling this method), set
@@ -0,0 +1,368 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import sinalgo.exception.WrongConfigurationException;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.tools.storage.ReusableListIterator;
+
+/**
+ * A list that holds the links to all neighbors of a given node, and that
+ * additionally indexes the links by the ID of their end node.
+ * <p>
+ * The edges are still kept in a doubly linked list, such that they are
+ * enumerated in the order in which they were added, exactly as with the
+ * {@link NodeOutgoingConnectionsList}. The index is an open addressing hash
+ * table from the ID of the end node to the edge, such that the methods to add,
+ * find and remove a single edge take constant expected time instead of being
+ * linear in the number of neighbors. This pays off for nodes with many
+ * neighbors, at the cost of some memory per node.
+ * <p>
+ * Select this implementation with the <code>outgoingConnections</code> entry
+ * of the configuration file.
+ */
+public class HashedOutgoingConnectionsList extends NodeOutgoingConnectionsList {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    // the hash table, allocated upon the first insertion. A slot is empty iff its
+    // value is null.
+    private int[] keys = null;
+    private Edge[] values = null;
+    private int numEntries = 0;
+
+    private ReusableListIterator<Edge> edgeIterator = super.iterator();
+
+    /**
+     * The constructor for the HashedOutgoingConnectionsList-class.
+     *
+     * @param keepFinger If set to true, entries keep their finger for later reuse (in this
+     *                   or a different list) when they are removed from this list. When
+     *                   set to false, the finger is removed.
+     */
+    public HashedOutgoingConnectionsList(boolean keepFinger) {
+        super(keepFinger);
+    }
+
+    @Override
+    public boolean add(Node startNode, Node endNode, boolean valid) throws WrongConfigurationException {
+        if (!this.containsAndSetVisited(startNode, endNode, valid)) {
+            Edge e = Edge.fabricateEdge(startNode, endNode);
+            e.valid = valid;
+            this.append(e);
+            this.put(e);
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    @Override
+    public Edge remove(Node from, Node to) {
+        if (!this.isIndexComplete()) {
+            Edge edge = super.remove(from, to);
+            if (edge != null) {
+                this.removeFromIndex(edge);
+            }
+            return edge;
+        }
+        Edge edge = this.getEdge(from, to);
+        if (edge != null) {
+            super.remove(edge);
+            this.removeFromIndex(edge);
+            edge.removeEdgeFromGraph(); // does not free the edge
+        }
+        return edge;
+    }
+
+    @Override
+    public void removeAndFreeAllEdges() {
+        this.clearIndex();
+        super.removeAndFreeAllEdges();
+    }
+
+    @Override
+    public boolean contains(Node startNode, Node endNode) {
+        return this.getEdge(startNode, endNode) != null;
+    }
+
+    @Override
+    public boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid) {
+        Edge e = this.getEdge(startNode, endNode);
+        if (e != null) {
+            e.valid = valid;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean containsAndSetVisited(Edge edge, boolean valid) {
+        return this.containsAndSetVisited(edge.startNode, edge.endNode, valid);
+    }
+
+    @Override
+    public Edge getEdge(Node startNode, Node endNode) {
+        if (!this.isIndexComplete()) {
+            return super.getEdge(startNode, endNode);
+        }
+        Edge e = this.lookup(endNode.ID);
+        if (e != null && e.startNode.ID == startNode.ID) {
+            return e;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean removeInvalidLinks() {
+        boolean rval = false;
+        edgeIterator.reset();
+        while (edgeIterator.hasNext()) {
+            Edge edge = edgeIterator.next();
+            if (!edge.valid) {
+                edgeIterator.remove();
+                this.removeFromIndex(edge);
+                edge.removeEdgeFromGraph();
+                edge.free();
+                rval = true;
+            } else {
+                edge.valid = false;
+            }
+        }
+        return rval;
+    }
+
+    @Override
+    public ReusableListIterator<Edge> iterator() {
+        return new IndexedIterator(super.iterator());
+    }
+
+    @Override
+    public void hackyAppend(Edge e) {
+        if (this.append(e)) {
+            this.put(e);
+        }
+    }
+
+    /**
+     * The index only holds one edge per end node. If the list contains several
+     * edges to the same node (which only happens when edges are appended with
+     * hackyAppend), the lookups fall back to traversing the list.
+     *
+     * @return True if each edge of this list is indexed.
+     */
+    private boolean isIndexComplete() {
+        return numEntries == this.size();
+    }
+
+    private static int hash(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private Edge lookup(int key) {
+        if (values == null) {
+            return null;
+        }
+        int mask = values.length - 1;
+        for (int i = hash(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds an edge to the index, unless the index already holds an edge to the
+     * same end node.
+     *
+     * @param e The edge to add.
+     */
+    private void put(Edge e) {
+        if (values == null) {
+            keys = new int[INITIAL_CAPACITY];
+            values = new Edge[INITIAL_CAPACITY];
+        } else if (2 * (numEntries + 1) > values.length) {
+            this.resize(2 * values.length);
+        }
+        int key = e.endNode.ID;
+        int mask = values.length - 1;
+        int i = hash(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = e;
+        numEntries++;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Edge[] oldValues = values;
+        keys = new int[capacity];
+        values = new Edge[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = hash(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes an edge from the index, if the index holds this edge.
+     *
+     * @param e The edge to remove.
+     */
+    private void removeFromIndex(Edge e) {
+        if (values == null) {
+            return;
+        }
+        int key = e.endNode.ID;
+        int mask = values.length - 1;
+        int i = hash(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] != e) {
+            return;
+        }
+        values[i] = null;
+        numEntries--;
+        // move the following entries of the probe sequence into the gap
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int h = hash(keys[j], mask);
+            boolean movable = (i <= j) ? (h <= i || h > j) : (h <= i && h > j);
+            if (movable) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void clearIndex() {
+        if (values != null) {
+            java.util.Arrays.fill(values, null);
+        }
+        numEntries = 0;
+    }
+
+    /**
+     * An iterator over the list that keeps the index up to date when the list is
+     * modified through the iterator.
+     */
+    private class IndexedIterator implements ReusableListIterator<Edge> {
+
+        private final ReusableListIterator<Edge> it;
+        private Edge lastReturned = null;
+
+        private IndexedIterator(ReusableListIterator<Edge> it) {
+            this.it = it;
+        }
+
+        @Override
+        public void reset() {
+            it.reset();
+            lastReturned = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Edge next() {
+            lastReturned = it.next();
+            return lastReturned;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return it.hasPrevious();
+        }
+
+        @Override
+        public Edge previous() {
+            lastReturned = it.previous();
+            return lastReturned;
+        }
+
+        @Override
+        public int nextIndex() {
+            return it.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return it.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            it.remove();
+            removeFromIndex(lastReturned);
+            lastReturned = null;
+        }
+
+        @Override
+        public void set(Edge e) {
+            it.set(e);
+            removeFromIndex(lastReturned);
+            put(e);
+            lastReturned = e;
+        }
+
+        @Override
+        public void add(Edge e) {
+            it.add(e);
+            put(e);
+            lastReturned = null;
+        }
+    }
+}
@@ -48,9 +48,11 @@ import sinalgo.nodes.messages.*;
 import sinalgo.nodes.messages.Packet.PacketType;
 import sinalgo.nodes.timers.Timer;
 import sinalgo.runtime.*;
+import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.PacketEvent;
 import sinalgo.runtime.nodeCollection.NodeCollectionInfoInterface;
 import sinalgo.tools.logging.LogL;
+import sinalgo.tools.storage.DoublyLinkedList;
 import sinalgo.tools.storage.DoublyLinkedListEntry;
 import sinalgo.tools.storage.ReusableListIterator;
 import sinalgo.tools.storage.SortableVector;
@@ -64,6 +66,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * The base class for all node implementations.
@@ -267,7 +270,46 @@ public abstract class Node implements DoublyLinkedListEntry {
     /**
      * The collection of all outgoing Links.
      */
-    public Connections outgoingConnections = new NodeOutgoingConnectionsList(true);
+    public Connections outgoingConnections = createOutgoingConnections();
+
+    // the constructor of the Connections implementation specified in the
+    // configuration file, null if the default implementation is used
+    private static Constructor<?> connectionsConstructor = null;
+    private static String connectionsClassName = null;
+
+    /**
+     * Creates the collection of the outgoing connections of a node, as specified
+     * by the <code>outgoingConnections</code> entry in the configuration file. The
+     * implementation needs to provide a constructor that takes the
+     * <code>keepFinger</code> flag of the underlying doubly linked list.
+     *
+     * @return A new, empty collection of outgoing connections.
+     */
+    private static Connections createOutgoingConnections() {
+        String name = Configuration.outgoingConnections;
+        if (NodeOutgoingConnectionsList.class.getName().equals(name)) {
+            return new NodeOutgoingConnectionsList(true);
+        }
+        try {
+            if (!name.equals(connectionsClassName)) {
+                connectionsConstructor = Class.forName(name).getConstructor(boolean.class);
+                connectionsClassName = name;
+            }
+            return (Connections) connectionsConstructor.newInstance(true);
+        } catch (ClassNotFoundException e) {
+            throw new SinalgoFatalException("Cannot find the class " + name
+                    + " which contains the implementation for the outgoing connections of the nodes. Please check the outgoingConnections field in the config file.");
+        } catch (ClassCastException e) {
+            throw new SinalgoFatalException("The class " + name + " does not implement the Connections interface.");
+        } catch (NoSuchMethodException | IllegalArgumentException e) {
+            throw new SinalgoFatalException("The connections implementation " + name
+                    + " must provide a constructor taking a boolean (the keepFinger flag).\n\n" + e.getMessage());
+        } catch (InstantiationException | IllegalAccessException | SecurityException e) {
+            throw new SinalgoFatalException("Cannot generate the connections object:\n\n" + e.getMessage());
+        } catch (InvocationTargetException e) {
+            throw new SinalgoFatalException("Exception while instanciating " + name + ":\n\n" + e.getCause().getMessage());
+        }
+    }
 
     /**
      * Adds a (unidirectional) connection from this node to another node.
@@ -284,6 +326,7 @@ public abstract class Node implements DoublyLinkedListEntry {
      */
     public void addConnectionTo(Node n) {
         outgoingConnections.add(this, n, false);
+        invalidateConnections();
     }
 
     /**
@@ -300,6 +343,8 @@ public abstract class Node implements DoublyLinkedListEntry {
     public void addBidirectionalConnectionTo(Node n) {
         outgoingConnections.add(this, n, false);
         n.outgoingConnections.add(n, this, false); // BUG FIX 8 April 2008
+        invalidateConnections();
+        n.invalidateConnections();
     }
 
     /**
@@ -319,10 +364,18 @@ public abstract class Node implements DoublyLinkedListEntry {
      * @param z The new z-coordinate of this node
      */
     public final void setPosition(double x, double y, double z) {
+        double oldX = position.xCoord, oldY = position.yCoord, oldZ = position.zCoord;
         position.xCoord = x;
         position.yCoord = y;
         position.zCoord = z;
         cropPos(position);
+        if (position.xCoord != oldX || position.yCoord != oldY || position.zCoord != oldZ) {
+            connectionsInvalidated = true;
+            SinalgoRuntime.packetsInTheAir.nodeMoved();
+        }
+        if (positionSlot >= 0) {
+            PositionStore.set(positionSlot, position);
+        }
         SinalgoRuntime.nodes.updateNodeCollection(this); // note that this method tests whether the node is already added to
         // the node collection
         nodePositionUpdated();
@@ -345,6 +398,32 @@ public abstract class Node implements DoublyLinkedListEntry {
         return position;
     }
 
+    /**
+     * Returns the squared distance between this node and another node. If
+     * <code>positionStore</code> is enabled in the configuration file, the
+     * coordinates are read from the {@link PositionStore}.
+     *
+     * @param n The other node.
+     * @return The squared distance between this node and the given node.
+     */
+    public final double squareDistanceTo(Node n) {
+        if (positionSlot >= 0 && n.positionSlot >= 0) {
+            return PositionStore.squareDistance(positionSlot, n.positionSlot);
+        }
+        return position.squareDistanceTo(n.position);
+    }
+
+    /**
+     * Returns the distance between this node and another node.
+     *
+     * @param n The other node.
+     * @return The distance between this node and the given node.
+     * @see #squareDistanceTo(Node)
+     */
+    public final double distanceTo(Node n) {
+        return Math.sqrt(squareDistanceTo(n));
+    }
+
     /**
      * @return true if the two objects are nodes and their ID is equal.
      * @see java.lang.Object#equals(java.lang.Object)
@@ -418,19 +497,11 @@ public abstract class Node implements DoublyLinkedListEntry {
      * @param intensity The intensity to send the message with.
      */
     public final void send(Message m, Node target, double intensity) {
-        Edge connection = null;
         // check, if a connection to the destination node exists
-        edgeIteratorInstance.reset();
-        while (edgeIteratorInstance.hasNext()) {
-            Edge edge = edgeIteratorInstance.next();
-            if (edge.endNode.equals(target)) {
-                connection = edge;
-                break;
-            }
-        }
+        Edge connection = outgoingConnections.getEdge(this, target);
         // If there is no edge, the message is marked to not arrive immediately in the
         // sendMessage() method
-        Packet sentP = sendMessage(m, connection, this, target, intensity);
+        Packet sentP = sendMessage(m, connection, this, target, intensity, PacketType.UNICAST);
         if (Configuration.interference) { // only add the message in the packetsInTheAirBuffer, if interference is
             // turned on
             SinalgoRuntime.packetsInTheAir.add(sentP);
@@ -472,6 +543,28 @@ public abstract class Node implements DoublyLinkedListEntry {
             throw new SinalgoFatalException("The clone() method of '" + msg.getClass().getName() + "' returns null \n"
                     + "instead of a copy of the message.");
         }
+        if (!Global.isAsynchronousMode) {
+            RoundOutbox outbox = RoundOutbox.getCurrentOutbox();
+            if (outbox != null) { // the nodes perform their step in parallel
+                outbox.deferSendDirect(clonedMsg, this, target);
+                return;
+            }
+        } else if (ParallelEventExecutor.isParallelPhase()) { // the events are executed in parallel
+            ParallelEventExecutor.defer(() -> deliverDirectly(clonedMsg, clonedMsg, target));
+            return;
+        }
+        deliverDirectly(msg, clonedMsg, target);
+    }
+
+    /**
+     * Sends a message through the direct channel used by
+     * {@link #sendDirect(Message, Node)}.
+     *
+     * @param msg       The message passed to the transmission model
+     * @param clonedMsg The copy of the message that is delivered
+     * @param target    The destination node of the message
+     */
+    final void deliverDirectly(Message msg, Message clonedMsg, Node target) {
         Packet packet = Packet.fabricatePacket(clonedMsg);
         double transmissionTime = Global.messageTransmissionModel.timeToReach(this, target, msg);
 
@@ -573,6 +666,11 @@ public abstract class Node implements DoublyLinkedListEntry {
      */
     public final void setConnectivityModel(ConnectivityModel cM) {
         connectivityModel = cM;
+        connectionsInvalidated = true;
+        if (holdInNodeCollection) {
+            // the node collection may depend on the range of the connectivity model
+            SinalgoRuntime.nodes.updateNodeCollection(this);
+        }
     }
 
     /**
@@ -988,6 +1086,7 @@ public abstract class Node implements DoublyLinkedListEntry {
             neighborhoodChange();
         }
 
+        SortableVector<Timer> timersToHandle = timersToHandleInstance.get();
         timersToHandle.clear();
         // Fire all timers which are going off in this round
         if (timers.size() > 0) {
@@ -1051,10 +1150,16 @@ public abstract class Node implements DoublyLinkedListEntry {
     // this round.
     private boolean neighborhoodChanged = false;
 
-    // !!! NOTE: this is a static vector used by all nodes!
+    // true if the connections of this node need to be evaluated entirely, see
+    // invalidateConnections()
+    private boolean connectionsInvalidated = true;
+
+    // !!! NOTE: this is a static vector used by all nodes (one per thread, as the
+    // nodes may perform their step in parallel)!
     // it gets cleared by every node at the begining of the step-method and thus can
     // be reused by all the nodes.
-    private static SortableVector<Timer> timersToHandle = new SortableVector<>();
+    private static final ThreadLocal<SortableVector<Timer>> timersToHandleInstance = ThreadLocal
+            .withInitial(SortableVector::new);
 
     /**
      * The list of active timers.
@@ -1072,6 +1177,33 @@ public abstract class Node implements DoublyLinkedListEntry {
      */
     private static int idCounter = 0;
 
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Called when this node is added to the simulation. Assigns a
+     * slot of the {@link PositionStore} to this node if it released its slot when
+     * it was removed before.
+     */
+    public final void acquirePositionSlot() {
+        if (Configuration.positionStore && positionSlot < 0) {
+            positionSlot = PositionStore.allocateSlot();
+            PositionStore.set(positionSlot, position);
+        }
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Called when this node is removed from the simulation.
+     * Releases the slot of this node in the {@link PositionStore}, such that it can
+     * be assigned to a node created later. The distance tests of this node then
+     * read the coordinates from its position.
+     */
+    public final void releasePositionSlot() {
+        if (positionSlot >= 0) {
+            PositionStore.releaseSlot(positionSlot);
+            positionSlot = -1;
+        }
+    }
+
     /**
      * <b>This member is framework internal and should not be used by the project
      * developer.</b>
@@ -1084,6 +1216,7 @@ public abstract class Node implements DoublyLinkedListEntry {
      */
     public static void resetIDCounter() {
         idCounter = 0;
+        PositionStore.reset();
     }
 
     /**
@@ -1137,6 +1270,10 @@ public abstract class Node implements DoublyLinkedListEntry {
     // the position of the node
     private Position position = new Position(0, 0, 0);
 
+    // the slot of this node in the PositionStore, -1 if the store is not used or
+    // the node was removed from the simulation
+    private int positionSlot = Configuration.positionStore ? PositionStore.allocateSlot() : -1;
+
     /**
      * Default constructor to construct a node. Initializes the ID of this node.
      */
@@ -1157,6 +1294,74 @@ public abstract class Node implements DoublyLinkedListEntry {
      */
     public final void updateConnections() {
         neighborhoodChanged = connectivityModel.updateConnections(this);
+        connectionsInvalidated = false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Completes the update of the connections of this node when the
+     * connections are updated in parallel. The connectivity model of this node
+     * must be a {@link ConnectivityModelHelper}.
+     *
+     * @param newNeighbors The neighbors collected by
+     *                     {@link ConnectivityModelHelper#collectConnections(Node, List)}
+     * @throws WrongConfigurationException When the type of edges does not fit the type of nodes.
+     */
+    public final void updateConnections(List<Node> newNeighbors) throws WrongConfigurationException {
+        neighborhoodChanged = ((ConnectivityModelHelper) connectivityModel).addConnections(this, newNeighbors);
+        connectionsInvalidated = false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Keeps the connections of this node instead of updating them,
+     * because neither this node nor any of its possible neighbors has moved.
+     * Connections to nodes that have moved are updated afterwards with
+     * {@link #updateConnectionTo(Node)}.
+     */
+    public final void retainConnections() {
+        neighborhoodChanged = false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Re-evaluates only the connection from this node to the given
+     * node. The connectivity model of this node must be a
+     * {@link ConnectivityModelHelper}.
+     *
+     * @param n The end node of the connection to update.
+     * @throws WrongConfigurationException When the type of edges does not fit the type of nodes.
+     */
+    public final void updateConnectionTo(Node n) throws WrongConfigurationException {
+        if (((ConnectivityModelHelper) connectivityModel).updateConnection(this, n)) {
+            neighborhoodChanged = true;
+        }
+    }
+
+    /**
+     * Marks the connections of this node to be re-evaluated in the next round.
+     * <p>
+     * This is only needed if <code>incrementalConnectivity</code> is enabled in
+     * the configuration file, in which case the connections of a node are only
+     * evaluated again after the node or one of its neighbors has moved. Call this
+     * method if something else changed that affects the connectivity model of
+     * this node. The framework calls this method itself when the position or the
+     * connectivity model of the node changes.
+     */
+    public final void invalidateConnections() {
+        connectionsInvalidated = true;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b>
+     *
+     * @return True if the connections of this node need to be evaluated again,
+     * because the node moved or {@link #invalidateConnections()} was called
+     * since the connections of this node were last updated.
+     */
+    public final boolean areConnectionsInvalidated() {
+        return connectionsInvalidated;
     }
 
     /**
@@ -1169,6 +1374,53 @@ public abstract class Node implements DoublyLinkedListEntry {
         return packetBuffer;
     }
 
+    // the events in the event queue that execute on this node, or that deliver a
+    // packet sent by this node (only used in the asynchronous mode)
+    private DoublyLinkedList<Event> queuedEvents = new DoublyLinkedList<>(true);
+
+    /**
+     * <b>This method is framework internal and should not be used by the project
+     * developer.</b><br>
+     *
+     * @return The list of events in the event queue that execute on this node, or
+     * that deliver a packet sent by this node.
+     */
+    public DoublyLinkedList<Event> getQueuedEvents() {
+        return queuedEvents;
+    }
+
+    // the edges that end at this node, i.e., the outgoing edges of other nodes
+    // pointing to this node
+    private DoublyLinkedList<Edge> incomingConnections = new DoublyLinkedList<>(true);
+
+    /**
+     * <b>This method is framework internal and should not be used by the project
+     * developer.</b><br>
+     * The list is maintained by {@link Edge#fabricateEdge(Node, Node)} and
+     * {@link Edge#free()}.
+     *
+     * @return The list of edges whose end node is this node.
+     */
+    public DoublyLinkedList<Edge> getIncomingConnections() {
+        return incomingConnections;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> The number of active packets in the packets in the air buffer
+     * that were sent by this node, see
+     * {@link sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer#getNumberOfActivePacketsFrom(Node)}.
+     */
+    public int numActivePacketsFrom = 0;
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> The number of active packets in the packets in the air buffer
+     * that were sent to this node by other nodes, see
+     * {@link sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer#getNumberOfActivePacketsTo(Node)}.
+     */
+    public int numActivePacketsTo = 0;
+
     /**
      * <b>This method is framework internal and should not be used by the project
      * developer.</b><br>
@@ -1177,6 +1429,21 @@ public abstract class Node implements DoublyLinkedListEntry {
      *          but did not arrive.
      */
     public void addNackPacket(Packet p) {
+        RoundOutbox outbox = RoundOutbox.getCurrentOutbox();
+        if (outbox != null) { // the nodes perform their step in parallel
+            outbox.deferNack(p);
+            return;
+        }
+        storeNackPacket(p);
+    }
+
+    /**
+     * Stores a dropped packet such that it is reported to this node in the next
+     * round.
+     *
+     * @param p The packet that was sent by this node, but did not arrive.
+     */
+    final void storeNackPacket(Packet p) {
         if (p.type != PacketType.UNICAST) {
             return; // only nacknowledge unicast messages
         }
@@ -1318,8 +1585,7 @@ public abstract class Node implements DoublyLinkedListEntry {
             edgeIteratorInstance.reset();
             while (edgeIteratorInstance.hasNext()) {
                 Edge e = edgeIteratorInstance.next();
-                Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity);
-                sentP.type = PacketType.MULTICAST;
+                Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity, PacketType.MULTICAST);
                 SinalgoRuntime.packetsInTheAir.addPassivePacket(sentP);
                 if (longestPacket == null || longestPacket.arrivingTime < sentP.arrivingTime) { // NOTE that the second
                     // statement is not
@@ -1333,8 +1599,7 @@ public abstract class Node implements DoublyLinkedListEntry {
             } else { // there was no neighbor
                 // For the interference, we need to send a packet anyways. Send it to this
                 // node itself.
-                Packet sentP = sendMessage(m, null, this, this, intensity);
-                sentP.type = PacketType.MULTICAST;
+                Packet sentP = sendMessage(m, null, this, this, intensity, PacketType.MULTICAST);
                 sentP.denyDelivery(); // ensure that the packet never arrives at this node
                 SinalgoRuntime.packetsInTheAir.add(sentP);
             }
@@ -1342,8 +1607,7 @@ public abstract class Node implements DoublyLinkedListEntry {
             edgeIteratorInstance.reset();
             while (edgeIteratorInstance.hasNext()) {
                 Edge e = edgeIteratorInstance.next();
-                Packet sentP = sendMessage(m, e, e.startNode, e.endNode, intensity);
-                sentP.type = PacketType.DUMMY;
+                sendMessage(m, e, e.startNode, e.endNode, intensity, PacketType.DUMMY);
             }
         }
     }
@@ -1362,13 +1626,15 @@ public abstract class Node implements DoublyLinkedListEntry {
      * @param sender    The sender node who sends the message
      * @param target    The destination node who should receive the message
      * @param intensity The radio-intensity of the sender node
-     * @return The packet that has been transmitted.
+     * @param type      The type of the packet
+     * @return The packet that has been transmitted, null if the transmission was
+     * deferred to the end of a parallel synchronous round.
      */
-    private Packet sendMessage(Message msg, Edge edge, Node sender, Node target, double intensity) {
+    private Packet sendMessage(Message msg, Edge edge, Node sender, Node target, double intensity, PacketType type) {
         if (Global.isAsynchronousMode) {
-            return asynchronousSending(msg, edge, sender, target, intensity);
+            return asynchronousSending(msg, edge, sender, target, intensity, type);
         } else {
-            return synchronousSending(msg, edge, sender, target, intensity);
+            return synchronousSending(msg, edge, sender, target, intensity, type);
         }
     }
 
@@ -1381,15 +1647,40 @@ public abstract class Node implements DoublyLinkedListEntry {
      * @param sender    The sender node who sends the message
      * @param target    The destination node who should receive the message
      * @param intensity The intensity at which the message is sent
-     * @return The packet encapsulating the message
+     * @param type      The type of the packet
+     * @return The packet encapsulating the message, null if the transmission was
+     * deferred to the end of the current window of parallel events.
      */
-    private Packet asynchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity) {
+    private Packet asynchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity,
+                                       PacketType type) {
 
         Message clonedMsg = msg.clone(); // send a copy of the message
         if (clonedMsg == null) {
             throw new SinalgoFatalException("The clone() method of '" + msg.getClass().getName() + "' returns null \n"
                     + "instead of a copy of the message.");
         }
+        if (ParallelEventExecutor.isParallelPhase()) { // the events are executed in parallel
+            ParallelEventExecutor.defer(
+                    () -> deliverAsynchronously(clonedMsg, clonedMsg, edge, sender, target, intensity, type));
+            return null;
+        }
+        return deliverAsynchronously(msg, clonedMsg, edge, sender, target, intensity, type);
+    }
+
+    /**
+     * Inserts the packet event that delivers a message in the asynchronous mode.
+     *
+     * @param msg       The message passed to the transmission model
+     * @param clonedMsg The copy of the message that is delivered
+     * @param edge      The edge over which the message is sent, may be null
+     * @param sender    The sender node who sends the message
+     * @param target    The destination node who should receive the message
+     * @param intensity The intensity at which the message is sent
+     * @param type      The type of the packet
+     * @return The packet encapsulating the message
+     */
+    private Packet deliverAsynchronously(Message msg, Message clonedMsg, Edge edge, Node sender, Node target,
+                                         double intensity, PacketType type) {
         Packet packet = Packet.fabricatePacket(clonedMsg);
         double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
 
@@ -1409,6 +1700,8 @@ public abstract class Node implements DoublyLinkedListEntry {
             packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
         }
 
+        packet.type = type; // the reliability model always gets to see a unicast packet
+
         Global.numberOfMessagesOverAll++; // statistics (don't increment the counter that counts the number of sent
         // messages per round. This counter has no meaning in the async mode.)
 
@@ -1419,6 +1712,10 @@ public abstract class Node implements DoublyLinkedListEntry {
 
     /**
      * Sends a message in the synchronous simulation mode
+     * <p>
+     * If the nodes currently perform their step in parallel, the transmission is
+     * recorded in the outbox of the calling thread and only executed at the end
+     * of the step phase, see {@link RoundOutbox}.
      *
      * @param msg       The message to be sent
      * @param edge      The edge over which the message is sent, may be null, if there is
@@ -1426,9 +1723,12 @@ public abstract class Node implements DoublyLinkedListEntry {
      * @param sender    The sender node who sends the message
      * @param target    The destination node who should receive the message
      * @param intensity The intensity at which the message is sent
-     * @return The packet encapsulating the message
+     * @param type      The type of the packet
+     * @return The packet encapsulating the message, null if the transmission was
+     * deferred.
      */
-    private Packet synchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity) {
+    private Packet synchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity,
+                                      PacketType type) {
         // check whether the simulation is currently running or not.
         if (!Global.isRunning) {
             // The simulation is not running and the send is called. The node is not allowed
@@ -1446,32 +1746,56 @@ public abstract class Node implements DoublyLinkedListEntry {
                 throw new SinalgoFatalException("The clone() method of '" + msg.getClass().getName() + "' returns null \n"
                         + "instead of a copy of the message.");
             }
-            Packet packet = Packet.fabricatePacket(clonedMsg);
-            double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
-
-            // fill in the data of the header
-            packet.arrivingTime = Global.currentTime + transmissionTime;
-            packet.sendingTime = Global.currentTime;
-            packet.origin = sender;
-            packet.destination = target;
-            packet.edge = edge;
-            packet.intensity = intensity;
-            packet.type = PacketType.UNICAST;
-            // this property must be checked when the entire packet was assembled
-            if (edge != null) {
-                packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
-                edge.addMessageForThisEdge(packet.message);
-            } else {
-                packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
+            RoundOutbox outbox = RoundOutbox.getCurrentOutbox();
+            if (outbox != null) { // the nodes perform their step in parallel
+                outbox.deferSend(clonedMsg, edge, sender, target, intensity, type);
+                return null;
             }
+            return deliverSynchronously(msg, clonedMsg, edge, sender, target, intensity, type);
+        }
+    }
 
-            target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
-
-            Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to
-            // Global.numberOfMessagesOverAll.)
+    /**
+     * Places a packet in the receive buffer of the target node in the synchronous
+     * simulation mode.
+     *
+     * @param msg       The message passed to the transmission model
+     * @param clonedMsg The copy of the message that is delivered
+     * @param edge      The edge over which the message is sent, may be null
+     * @param sender    The sender node who sends the message
+     * @param target    The destination node who should receive the message
+     * @param intensity The intensity at which the message is sent
+     * @param type      The type of the packet
+     * @return The packet encapsulating the message
+     */
+    final Packet deliverSynchronously(Message msg, Message clonedMsg, Edge edge, Node sender, Node target,
+                                      double intensity, PacketType type) {
+        Packet packet = Packet.fabricatePacket(clonedMsg);
+        double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
 
-            return packet;
+        // fill in the data of the header
+        packet.arrivingTime = Global.currentTime + transmissionTime;
+        packet.sendingTime = Global.currentTime;
+        packet.origin = sender;
+        packet.destination = target;
+        packet.edge = edge;
+        packet.intensity = intensity;
+        packet.type = PacketType.UNICAST;
+        // this property must be checked when the entire packet was assembled
+        if (edge != null) {
+            packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
+            edge.addMessageForThisEdge(packet.message);
+        } else {
+            packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
         }
+        packet.type = type; // the reliability model always gets to see a unicast packet
+
+        target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
+
+        Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to
+        // Global.numberOfMessagesOverAll.)
+
+        return packet;
     }
 
     /**
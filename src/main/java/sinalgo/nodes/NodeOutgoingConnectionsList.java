@@ -114,6 +114,18 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
         return false;
     }
 
+    @Override
+    public Edge getEdge(Node startNode, Node endNode) {
+        edgeIterator.reset();
+        while (edgeIterator.hasNext()) {
+            Edge e = edgeIterator.next();
+            if ((e.startNode.ID == startNode.ID) && (e.endNode.ID == endNode.ID)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
     @Override
     public boolean removeInvalidLinks() {
         // go over all the links and remove the ones set to false (set all the values to
@@ -189,7 +201,8 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
      *                  contained in the vector.
      * @return If the specified edge is in the vector.
      */
-    protected boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid) {
+    @Override
+    public boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid) {
         edgeIterator.reset();
         while (edgeIterator.hasNext()) {
             Edge e = edgeIterator.next();
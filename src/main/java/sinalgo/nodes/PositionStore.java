@@ -0,0 +1,174 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import java.util.Arrays;
+
+/**
+ * <b>This class is framework internal and should not be used by the project
+ * developer.</b>
+ * <p>
+ * Stores the coordinates of all nodes in three arrays, one per dimension. This
+ * store is only used if <code>positionStore</code> is enabled in the
+ * configuration file. Each node is then assigned a slot of the arrays when it
+ * is created, and {@link Node#setPosition(double, double, double)} writes the
+ * new position of the node into its slot as well. When a node is removed from
+ * the simulation, its slot is released and reused by the next node that is
+ * created.
+ * <p>
+ * The distance tests between nodes, see {@link Node#squareDistanceTo(Node)},
+ * read the coordinates from the arrays. As the nodes are created one after the
+ * other, the coordinates of all nodes lie next to each other in memory, instead
+ * of being spread over one {@link Position} object per node.
+ * <p>
+ * Note that the position of a node must be changed through its setPosition
+ * methods while this store is enabled, not by modifying the object returned by
+ * {@link Node#getPosition()}.
+ */
+public final class PositionStore {
+
+    private static double[] x = new double[0];
+    private static double[] y = new double[0];
+    private static double[] z = new double[0];
+
+    // the number of slots assigned so far
+    private static int numSlots = 0;
+
+    // the released slots below numSlots, which are reused before new slots are assigned
+    private static int[] freeSlots = new int[0];
+    private static int numFreeSlots = 0;
+
+    private PositionStore() {
+    }
+
+    /**
+     * Assigns a slot to a node, preferably one that was released before. The slot
+     * holds the origin, which is the position of a new node, as slots are reused.
+     *
+     * @return The slot of the node.
+     */
+    static int allocateSlot() {
+        int slot;
+        if (numFreeSlots > 0) {
+            slot = freeSlots[--numFreeSlots];
+        } else {
+            if (numSlots == x.length) {
+                int length = Math.max(16, 2 * numSlots);
+                x = Arrays.copyOf(x, length);
+                y = Arrays.copyOf(y, length);
+                z = Arrays.copyOf(z, length);
+            }
+            slot = numSlots++;
+        }
+        x[slot] = 0;
+        y[slot] = 0;
+        z[slot] = 0;
+        return slot;
+    }
+
+    /**
+     * Releases the slot of a node that was removed from the simulation, such that
+     * it can be assigned to another node.
+     *
+     * @param slot The slot to release.
+     */
+    static void releaseSlot(int slot) {
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, 2 * numFreeSlots));
+        }
+        freeSlots[numFreeSlots++] = slot;
+    }
+
+    /**
+     * Releases all slots. Called when the framework is reset, after which the
+     * nodes generated before must not be used anymore.
+     */
+    static void reset() {
+        numSlots = 0;
+        numFreeSlots = 0;
+    }
+
+    /**
+     * Sets the coordinates stored in a slot.
+     *
+     * @param slot The slot of the node.
+     * @param p    The position of the node.
+     */
+    static void set(int slot, Position p) {
+        x[slot] = p.xCoord;
+        y[slot] = p.yCoord;
+        z[slot] = p.zCoord;
+    }
+
+    /**
+     * @param slot The slot of a node.
+     * @return The x-coordinate of the node.
+     */
+    public static double getX(int slot) {
+        return x[slot];
+    }
+
+    /**
+     * @param slot The slot of a node.
+     * @return The y-coordinate of the node.
+     */
+    public static double getY(int slot) {
+        return y[slot];
+    }
+
+    /**
+     * @param slot The slot of a node.
+     * @return The z-coordinate of the node.
+     */
+    public static double getZ(int slot) {
+        return z[slot];
+    }
+
+    /**
+     * Returns the squared distance between the nodes in two slots.
+     *
+     * @param a The slot of the first node.
+     * @param b The slot of the second node.
+     * @return The squared distance between the two nodes.
+     */
+    public static double squareDistance(int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        double dz = z[a] - z[b];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
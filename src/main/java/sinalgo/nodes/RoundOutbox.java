@@ -0,0 +1,235 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.messages.Packet.PacketType;
+
+/**
+ * <b>This class is framework internal and should not be used by the project
+ * developer.</b>
+ * <p>
+ * When the nodes of a synchronous round perform their step in parallel, the
+ * packets they send cannot be placed directly in the receive buffer of the
+ * target node, as the target may be handled concurrently by a different worker
+ * thread. Instead, the send operations are recorded in the outbox of the
+ * partition of nodes that is currently being stepped, and are executed at the
+ * end of the step phase by calling {@link #flush()} on all outboxes in the
+ * order of the partitions.
+ * <p>
+ * As the partitions cover consecutive ranges of nodes, this replays the send
+ * operations in exactly the order in which a sequential round would have
+ * executed them. In particular, the message transmission model and the
+ * reliability model are called in the same order, such that a run with a fixed
+ * seed obtains the same result as the sequential run.
+ */
+public class RoundOutbox {
+
+    // set while the nodes perform their step in parallel
+    private static boolean parallelPhase = false;
+
+    // the outbox assigned to the partition the current thread is working on
+    private static final ThreadLocal<RoundOutbox> currentOutbox = new ThreadLocal<>();
+
+    private enum Kind {
+        SEND, SEND_DIRECT, NACK
+    }
+
+    /**
+     * A single deferred operation. The instances are recycled from round to round.
+     */
+    private static class DeferredOperation {
+
+        private Kind kind;
+        private Message message; // the copy of the message to send
+        private Edge edge;
+        private Node sender;
+        private Node target;
+        private double intensity;
+        private PacketType type;
+        private Packet packet; // the dropped packet for NACK operations
+
+        private void clear() {
+            message = null;
+            edge = null;
+            sender = null;
+            target = null;
+            type = null;
+            packet = null;
+        }
+    }
+
+    private DeferredOperation[] operations = new DeferredOperation[16];
+    private int size = 0;
+
+    /**
+     * Enables or disables the parallel step phase. While the phase is active,
+     * nodes record their send operations in the outbox that is assigned to the
+     * calling thread.
+     *
+     * @param active True at the beginning of the parallel step phase, false at its
+     *               end.
+     */
+    public static void setParallelPhase(boolean active) {
+        parallelPhase = active;
+    }
+
+    /**
+     * @return The outbox assigned to the calling thread, null if the nodes are not
+     * being stepped in parallel.
+     */
+    static RoundOutbox getCurrentOutbox() {
+        if (!parallelPhase) {
+            return null;
+        }
+        return currentOutbox.get();
+    }
+
+    /**
+     * Assigns this outbox to the calling thread. All operations recorded by the
+     * calling thread are stored in this outbox until {@link #release()} is called.
+     */
+    public void assignToCurrentThread() {
+        currentOutbox.set(this);
+    }
+
+    /**
+     * Removes the outbox assignment of the calling thread.
+     */
+    public void release() {
+        currentOutbox.remove();
+    }
+
+    /**
+     * @return The number of operations waiting in this outbox.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records a unicast send operation.
+     *
+     * @see Node#deliverSynchronously(Message, Message, Edge, Node, Node, double,
+     * PacketType)
+     */
+    void deferSend(Message clonedMsg, Edge edge, Node sender, Node target, double intensity, PacketType type) {
+        DeferredOperation op = nextOperation(Kind.SEND);
+        op.message = clonedMsg;
+        op.edge = edge;
+        op.sender = sender;
+        op.target = target;
+        op.intensity = intensity;
+        op.type = type;
+    }
+
+    /**
+     * Records a send operation issued through {@link Node#sendDirect(Message, Node)}.
+     *
+     * @see Node#deliverDirectly(Message, Message, Node)
+     */
+    void deferSendDirect(Message clonedMsg, Node sender, Node target) {
+        DeferredOperation op = nextOperation(Kind.SEND_DIRECT);
+        op.message = clonedMsg;
+        op.sender = sender;
+        op.target = target;
+    }
+
+    /**
+     * Records that a packet was dropped and needs to be returned to its sender.
+     *
+     * @see Node#storeNackPacket(Packet)
+     */
+    void deferNack(Packet p) {
+        DeferredOperation op = nextOperation(Kind.NACK);
+        op.packet = p;
+    }
+
+    /**
+     * Executes all recorded operations in the order they were recorded, and empties
+     * this outbox.
+     * <p>
+     * This method must only be called after all nodes have finished their step.
+     */
+    public void flush() {
+        for (int i = 0; i < size; i++) {
+            DeferredOperation op = operations[i];
+            switch (op.kind) {
+                case SEND:
+                    op.sender.deliverSynchronously(op.message, op.message, op.edge, op.sender, op.target, op.intensity,
+                            op.type);
+                    break;
+                case SEND_DIRECT:
+                    op.sender.deliverDirectly(op.message, op.message, op.target);
+                    break;
+                case NACK:
+                    op.packet.origin.storeNackPacket(op.packet);
+                    break;
+            }
+            op.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * Drops all recorded operations without executing them.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            operations[i].clear();
+        }
+        size = 0;
+    }
+
+    private DeferredOperation nextOperation(Kind kind) {
+        if (size == operations.length) {
+            DeferredOperation[] tmp = new DeferredOperation[operations.length * 2];
+            System.arraycopy(operations, 0, tmp, 0, size);
+            operations = tmp;
+        }
+        DeferredOperation op = operations[size];
+        if (op == null) {
+            op = new DeferredOperation();
+            operations[size] = op;
+        }
+        size++;
+        op.kind = kind;
+        return op;
+    }
+}
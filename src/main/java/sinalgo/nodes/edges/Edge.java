@@ -47,7 +47,9 @@ import sinalgo.nodes.Position;
 import sinalgo.nodes.messages.Message;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.runtime.events.PacketEvent;
 import sinalgo.tools.logging.Logging;
+import sinalgo.tools.storage.DoublyLinkedList;
 import sinalgo.tools.storage.DoublyLinkedListEntry;
 
 import java.awt.*;
@@ -308,6 +310,21 @@ public class Edge implements DoublyLinkedListEntry {
         numberOfMessagesOnThisEdge--;
     }
 
+    // the packet events in the event queue that deliver a packet sent over this
+    // edge (only used in the asynchronous mode)
+    private DoublyLinkedList<PacketEvent> packetEvents = new DoublyLinkedList<>(true);
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b>
+     *
+     * @return The list of packet events in the event queue that deliver a packet
+     * sent over this edge.
+     */
+    public DoublyLinkedList<PacketEvent> getPacketEvents() {
+        return packetEvents;
+    }
+
     /**
      * <b>This member is framework internal and should not be used by the project
      * developer.</b> A boolean used to indicate, wether the edge has been validated
@@ -322,16 +339,18 @@ public class Edge implements DoublyLinkedListEntry {
      * of this edge in the other direction.
      * <p>
      * If there is no such edge, the field otherEdge is set to null.
+     * <p>
+     * The edge is looked up with {@link sinalgo.nodes.Connections#getEdge(Node, Node)}
+     * on the end node, which takes constant time if the connections of the nodes
+     * are indexed (see the <code>outgoingConnections</code> entry of the
+     * configuration file).
      */
     protected final void findOppositeEdge() {
-        for (Edge e : endNode.outgoingConnections) {
-            if ((e.startNode.ID == endNode.ID) && (e.endNode.ID == startNode.ID)) {
-                this.oppositeEdge = e;
-                e.oppositeEdge = this;
-                return;
-            }
+        Edge e = endNode.outgoingConnections.getEdge(endNode, startNode);
+        this.oppositeEdge = e; // null if no other edge found
+        if (e != null) {
+            e.oppositeEdge = this;
         }
-        this.oppositeEdge = null; // no other edge found
     }
 
     /**
@@ -395,7 +414,6 @@ public class Edge implements DoublyLinkedListEntry {
      */
     public static Edge fabricateEdge(Node from, Node to) {
         Edge edge = freeEdges.get();
-        // TODO: this is expensive!
         if (edge != null) { // we can recycle an edge
             if (edge.startNode != null || edge.endNode != null) { // sanity check
                 throw new SinalgoFatalException(Logging.getCodePosition()
@@ -452,6 +470,7 @@ public class Edge implements DoublyLinkedListEntry {
         edge.ID = getNextFreeID();
 
         edge.findOppositeEdge(); // if there is an edge in the opposite direction, set the oppositeEdge field
+        to.getIncomingConnections().append(edge);
         edge.initializeEdge(); // Finally, call a custom initialization method
         numEdgesOnTheFly++;
         return edge;
@@ -498,6 +517,9 @@ public class Edge implements DoublyLinkedListEntry {
             }
             this.oppositeEdge = null;
         }
+        if (this.endNode != null) {
+            this.endNode.getIncomingConnections().remove(this);
+        }
         this.startNode = null;
         this.endNode = null;
         this.defaultColor = null;
@@ -152,11 +152,11 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
      * @return A Packet instance, either a new one or a recycled one.
      */
     public static Packet fabricatePacket(Message msg) {
-        numPacketsOnTheFly++;
         if (freePackets.empty()) {
             Packet p = new Packet(msg);
             synchronized (issuedPackets) {
                 issuedPackets.append(p);
+                numPacketsOnTheFly++;
             }
             return p;
         } else {
@@ -169,6 +169,7 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
             rP.message = msg;
             synchronized (issuedPackets) {
                 issuedPackets.append(rP);
+                numPacketsOnTheFly++;
             }
             return rP;
         }
@@ -186,8 +187,9 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
                 System.err.println(Logging.getCodePosition()
                         + " Bug in packet factory. Please report this error if you see this line.\n\n\n");
             }
+            // the nodes may free their packets concurrently when they perform their step in parallel
+            numPacketsOnTheFly--;
         }
-        numPacketsOnTheFly--;
         pack.destination = null;
         pack.origin = null;
         pack.edge = null;
@@ -200,6 +202,33 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
      */
     public long ID;
 
+    /**
+     * The sum of the interference caused at the destination of this packet by the
+     * other packets in the air, as determined by
+     * {@link sinalgo.models.InterferenceModel#getInterference(Packet, Packet)}.
+     * <p>
+     * This member is only maintained in asynchronous mode if the interference is
+     * not additive, and if the interference model of the destination supports
+     * incremental updates. The sum is kept as a compensated sum, i.e., the
+     * interference is <code>interference + interferenceCompensation</code>.
+     */
+    public double interference;
+
+    /**
+     * The low-order part of the compensated sum {@link #interference}, which
+     * collects the rounding errors of the updates. Without it, adding and later
+     * subtracting the interference of a strong nearby sender would wipe out the
+     * contributions of the distant senders.
+     */
+    public double interferenceCompensation;
+
+    /**
+     * The number of other packets in the air that prevent this packet from being
+     * received altogether, independent of their intensity. Maintained together
+     * with {@link #interference}.
+     */
+    public int numBlockingPackets;
+
     // the next id to give to a packet
     private static long nextID = 1;
 
@@ -39,6 +39,7 @@ package sinalgo.nodes.timers;
 import sinalgo.exception.SinalgoFatalException;
 import sinalgo.nodes.Node;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.ParallelEventExecutor;
 import sinalgo.runtime.SinalgoRuntime;
 import sinalgo.runtime.events.TimerEvent;
 
@@ -78,9 +79,9 @@ public abstract class Timer implements Comparable<Timer> {
             throw new SinalgoFatalException("A relative time indicating when a timer should start must be strictly positive.");
         }
         node = null;
-        fireTime = Global.currentTime + relativeTime;
+        fireTime = Global.getCurrentTime() + relativeTime;
         if (Global.isAsynchronousMode) {
-            SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
+            schedule();
         } else {
             Global.customGlobal.globalTimers.add(this);
         }
@@ -103,9 +104,9 @@ public abstract class Timer implements Comparable<Timer> {
             throw new SinalgoFatalException("A relative time indicating when a timer should start must be strictly positive.");
         }
         node = n;
-        fireTime = Global.currentTime + relativeTime;
+        fireTime = Global.getCurrentTime() + relativeTime;
         if (Global.isAsynchronousMode) {
-            SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
+            schedule();
         } else {
             node.getTimers().add(this);
         }
@@ -121,18 +122,31 @@ public abstract class Timer implements Comparable<Timer> {
      *                     fired.
      */
     public final void startAbsolute(double absoluteTime, Node n) {
-        if (absoluteTime <= Global.currentTime) {
+        if (absoluteTime <= Global.getCurrentTime()) {
             throw new SinalgoFatalException("The absolute time when a timer goes off must be strictly larger than the current time.");
         }
         node = n;
         fireTime = absoluteTime;
         if (Global.isAsynchronousMode) {
-            SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
+            schedule();
         } else {
             node.getTimers().add(this);
         }
     }
 
+    /**
+     * Inserts this timer into the event queue. If the events are currently
+     * executed in parallel, the timer is scheduled by the
+     * {@link ParallelEventExecutor} instead.
+     */
+    private void schedule() {
+        if (ParallelEventExecutor.isParallelPhase()) {
+            ParallelEventExecutor.scheduleTimer(this);
+        } else {
+            SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
+        }
+    }
+
     @Override
     public int compareTo(Timer t) {
         return Double.compare(fireTime, t.fireTime);
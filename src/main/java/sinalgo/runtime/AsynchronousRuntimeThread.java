@@ -109,6 +109,9 @@ public class AsynchronousRuntimeThread extends Thread {
         if (!connectivityInitialized && Configuration.initializeConnectionsOnStartup) {
             initializeConnectivity();
         }
+        if (Configuration.parallelEvents) {
+            ParallelEventExecutor.partitionNodes();
+        }
 
         for (long i = 0; i < numberOfEvents; i++) {
             // In GUI-mode, check whether ABORT was pressed.
@@ -118,15 +121,35 @@ public class AsynchronousRuntimeThread extends Thread {
             }
             if (event != null) {
                 event.free(); // free the previous event
+                event = null;
             }
-            event = SinalgoRuntime.eventQueue.getNextEvent(); // returns null if there is no further event
-
-            if (event == null && Configuration.handleEmptyEventQueue) {
-                Global.customGlobal.handleEmptyEventQueue();
-                // and try again
-                event = SinalgoRuntime.eventQueue.getNextEvent(); // returns null if there is no further event
+            long executed = 0;
+            if (Configuration.parallelEvents) {
+                executed = ParallelEventExecutor.executeWindow(numberOfEvents - i);
+                if (executed > 0) {
+                    event = ParallelEventExecutor.getLastEvent();
+                }
             }
-            if (event == null) {
+            if (executed == 0) {
+                // take all events that happen at the same time out of the queue at once
+                int maxEvents = (int) Math.min(numberOfEvents - i, Integer.MAX_VALUE);
+                if (SinalgoRuntime.eventQueue.pollBatch(maxEvents) == 0 && Configuration.handleEmptyEventQueue) {
+                    Global.customGlobal.handleEmptyEventQueue();
+                    // and try again
+                    SinalgoRuntime.eventQueue.pollBatch(maxEvents);
+                }
+                Event e;
+                while ((e = SinalgoRuntime.eventQueue.nextBatchedEvent()) != null) {
+                    if (event != null) {
+                        event.free(); // free the previous event
+                    }
+                    event = e;
+                    Global.currentTime = event.time;
+                    event.handle(); // does not yet free the event
+                    executed++;
+                }
+            }
+            if (executed == 0) {
                 Global.log.logln(LogL.EVENT_QUEUE_DETAILS,
                         "There is no event to be executed. Generate an event manually.");
                 if (Global.isGuiMode) {
@@ -136,25 +159,13 @@ public class AsynchronousRuntimeThread extends Thread {
                 }
             }
 
-            Global.currentTime = event.time;
-
-            event.handle(); // does not yet free the event
-
             if (Global.isGuiMode) {
-                if (i % refreshRate == refreshRate - 1 && i + 1 < numberOfEvents) { // only perform if we continue with
-                    // more events
-                    if (lastEventNode != null) {
-                        lastEventNode.highlight(false);
-                    }
-                    if (event.isNodeEvent()) {
-                        event.getEventNode().highlight(true);
-                    }
-                    lastEventNode = event.getEventNode();// may be null, if the event does not execute on a node
-                    runtime.getGUI().setRoundsPerformed((Global.currentTime), EventQueue.eventNumber);
-                    runtime.getGUI().setCurrentlyProcessedEvent(event); // does not store the event
-                    runtime.getGUI().redrawGUINow();
+                // only perform if we continue with more events
+                if ((i + executed) / refreshRate > i / refreshRate && i + executed < numberOfEvents) {
+                    refreshGUI(event);
                 }
             }
+            i += executed - 1;
         }
 
         if (Global.isGuiMode) {
@@ -185,5 +196,25 @@ public class AsynchronousRuntimeThread extends Thread {
             event.free();
         }
         Global.isRunning = false;
+        SinalgoRuntime.eventQueue.flushNotifications();
+    }
+
+    /**
+     * Highlights the node of the given event and redraws the GUI.
+     *
+     * @param event The last event that was handled.
+     */
+    private void refreshGUI(Event event) {
+        if (lastEventNode != null) {
+            lastEventNode.highlight(false);
+        }
+        if (event.isNodeEvent()) {
+            event.getEventNode().highlight(true);
+        }
+        lastEventNode = event.getEventNode();// may be null, if the event does not execute on a node
+        SinalgoRuntime.eventQueue.flushNotifications();
+        runtime.getGUI().setRoundsPerformed((Global.currentTime), EventQueue.eventNumber);
+        runtime.getGUI().setCurrentlyProcessedEvent(event); // does not store the event
+        runtime.getGUI().redrawGUINow();
     }
 }
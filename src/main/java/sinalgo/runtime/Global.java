@@ -112,6 +112,23 @@ public class Global {
      */
     public static double currentTime = 0;
 
+    /**
+     * Returns the current time of the simulation.
+     * <p>
+     * This is the same as {@link #currentTime}, except while the events of the
+     * asynchronous mode are executed in parallel (see
+     * {@link ParallelEventExecutor}). In that case, this method returns the time of
+     * the event the calling thread is handling.
+     *
+     * @return The current time of the simulation.
+     */
+    public static double getCurrentTime() {
+        if (ParallelEventExecutor.isParallelPhase()) {
+            return ParallelEventExecutor.getLocalTime();
+        }
+        return currentTime;
+    }
+
     /**
      * A boolean whose value changes in every round s.t. in every second round, this
      * value is the same. This member may only be used in synchronous simulation
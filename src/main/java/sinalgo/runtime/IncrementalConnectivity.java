@@ -0,0 +1,156 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+import sinalgo.models.ConnectivityModel;
+import sinalgo.models.ConnectivityModelHelper;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.edges.Edge;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+
+/**
+ * <b>This class is framework internal and should not be used by the project
+ * developer.</b>
+ * <p>
+ * Updates the connections of the nodes in a synchronous round incrementally.
+ * This class is only used if <code>incrementalConnectivity</code> is enabled in
+ * the configuration file.
+ * <p>
+ * If the connectivity model of a node only depends on the positions of the
+ * nodes (see {@link ConnectivityModelHelper#isIncrementalUpdateSupported()}),
+ * its connection to another node can only change if one of the two nodes has
+ * moved. Therefore, only the nodes that have moved (or whose connections were
+ * invalidated otherwise) evaluate all of their connections. For all other
+ * nodes, only the connections to the possible neighbors that have moved are
+ * evaluated again, and a node without moved nodes in its neighborhood keeps
+ * its connections without testing any of them.
+ * <p>
+ * The nodes whose connectivity model does not support the incremental update
+ * evaluate all of their connections in every round, as without this flag.
+ */
+public class IncrementalConnectivity {
+
+    // the nodes that have moved since the last update
+    private static ArrayList<Node> movedNodes = new ArrayList<>();
+
+    // the nodes whose connection to a moved node has already been evaluated
+    private static HashSet<Node> visited = new HashSet<>();
+
+    // the start nodes of the edges to a moved node that remain to be evaluated
+    private static ArrayList<Node> incoming = new ArrayList<>();
+
+    /**
+     * Updates the connections of all nodes.
+     */
+    public static void updateConnections() {
+        for (Node n : SinalgoRuntime.nodes) {
+            if (n.areConnectionsInvalidated()) {
+                movedNodes.add(n);
+            } else if (isIncremental(n)) {
+                n.retainConnections();
+            }
+        }
+        try {
+            // the connections from unmoved nodes to the moved nodes. This is done
+            // before the moved nodes update their own connections, such that edges
+            // added in the opposite direction (e.g. by bidirectional edges) are
+            // validated by the moved nodes afterwards.
+            for (Node m : movedNodes) {
+                Enumeration<Node> pNE = SinalgoRuntime.nodes.getPossibleNeighborsEnumeration(m);
+                while (pNE.hasMoreElements()) {
+                    Node c = pNE.nextElement();
+                    if (isUnmoved(c)) {
+                        c.updateConnectionTo(m);
+                        visited.add(c);
+                    }
+                }
+                // the nodes that are connected to m, but are not possible neighbors
+                // anymore
+                for (Edge e : m.getIncomingConnections()) {
+                    if (isUnmoved(e.startNode) && !visited.contains(e.startNode)) {
+                        incoming.add(e.startNode);
+                    }
+                }
+                for (Node c : incoming) {
+                    c.updateConnectionTo(m);
+                }
+                incoming.clear();
+                visited.clear();
+            }
+        } finally {
+            movedNodes.clear();
+            incoming.clear();
+            visited.clear();
+        }
+
+        for (Node n : SinalgoRuntime.nodes) {
+            if (n.areConnectionsInvalidated() || !isIncremental(n)) {
+                n.updateConnections();
+                // edges added to unmoved nodes in the opposite direction (e.g. by
+                // bidirectional edges) are set valid, reset them as all other edges of
+                // these nodes
+                for (Edge e : n.getIncomingConnections()) {
+                    if (isUnmoved(e.startNode)) {
+                        e.valid = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param n A node.
+     * @return True if the connections of the given node may be kept as long as
+     * the node and its neighbors do not move.
+     */
+    private static boolean isIncremental(Node n) {
+        ConnectivityModel cm = n.getConnectivityModel();
+        return cm instanceof ConnectivityModelHelper && ((ConnectivityModelHelper) cm).usesIncrementalUpdate();
+    }
+
+    /**
+     * @param n A node.
+     * @return True if the connections of the given node are only updated towards
+     * the moved nodes.
+     */
+    private static boolean isUnmoved(Node n) {
+        return !n.areConnectionsInvalidated() && isIncremental(n);
+    }
+}
@@ -0,0 +1,650 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.timers.Timer;
+import sinalgo.runtime.events.Event;
+import sinalgo.runtime.events.EventQueue;
+import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.TimerEvent;
+import sinalgo.tools.statistics.Distribution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * <b>This class is framework internal and should not be used by the project
+ * developer.</b>
+ * <p>
+ * Executes the events of the asynchronous mode on several worker threads. This
+ * class is only used if <code>parallelEvents</code> is enabled in the
+ * configuration file.
+ * <p>
+ * This is a conservative, window based parallel execution: every message takes
+ * at least the minimum delay reported by the message transmission model to
+ * arrive. Therefore, the events that happen within this delay after the next
+ * event of the queue cannot be influenced by a message sent in any of these
+ * events, and only depend on the events of the same node. These events form a
+ * window, which is executed at once.
+ * <p>
+ * The nodes are split into logical processes by their position: the nodes are
+ * ordered along a Z-order curve (Morton order) through the area they occupy, and
+ * this order is cut into consecutive ranges, such that each logical process
+ * covers a compact region, and most neighbors belong to the same logical
+ * process. The partition is determined when a run starts, and a node that moves
+ * stays in its logical process. The events of a window are assigned to the
+ * logical process of the node on which they execute, and each logical process
+ * handles its events in the order of the event queue on one worker thread. A
+ * timer that goes off within the window on a node of the same logical process
+ * is executed by this logical process. All other messages and timers are
+ * scheduled once the window is completed, in the order in which a sequential
+ * execution would have scheduled them. The random number generator of the
+ * simulation is locked while the window is executed (see
+ * {@link Distribution#setRandomLocked(boolean)}). Hence, a run with a fixed seed
+ * obtains the same result as the sequential run.
+ * <p>
+ * A timer that goes off within the window on a node of a different logical
+ * process, or a global timer, ends the window early at the time the timer goes
+ * off: no further events at or after this time are started, and the remaining
+ * events are put back into the event queue. If another logical process already
+ * executed such an event, the order of the events may differ from a sequential
+ * execution. In that case, a warning is issued and all further events are
+ * executed sequentially.
+ * <p>
+ * Note that this requires the nodes not to access the state of other nodes (or
+ * any other shared state) when they handle an event. Furthermore, while the
+ * window is executed, {@link Global#currentTime} holds the start of the window,
+ * whereas {@link Global#getCurrentTime()} returns the time of the event that is
+ * being handled.
+ */
+public class ParallelEventExecutor {
+
+    // set while the events of a window are executed
+    private static boolean parallelPhase = false;
+
+    // the logical process the current thread is working on
+    private static final ThreadLocal<LogicalProcess> currentProcess = new ThreadLocal<>();
+
+    private static List<LogicalProcess> processes = new ArrayList<>();
+
+    // for each node ID, the index of the logical process of the node
+    private static int[] processOfNode = new int[0];
+
+    // the time of the first event of the current window
+    private static double windowStart = 0;
+
+    // the end of the current window (exclusive), which is moved to an earlier time
+    // if a timer goes off within the window on a node of a different logical process
+    private static volatile double windowEnd = 0;
+
+    // set once a window could not be ended early enough, in which case the events
+    // are executed sequentially from then on
+    private static boolean sequentialFallback = false;
+
+    // the last event that was removed from the event queue, not yet freed
+    private static Event lastEvent = null;
+
+    // the logical processes that have events in the current window
+    private static final List<LogicalProcess> activeProcesses = new ArrayList<>();
+
+    private static final ArrayList<DeferredOperation> operations = new ArrayList<>();
+
+    /**
+     * Splits the nodes into logical processes. This method needs to be called
+     * before a run starts, as the nodes may have been added or removed since the
+     * last run.
+     */
+    public static void partitionNodes() {
+        int numNodes = SinalgoRuntime.nodes.size();
+        int maxID = 0;
+        for (Node n : SinalgoRuntime.nodes) {
+            maxID = Math.max(maxID, n.ID);
+        }
+        if (processOfNode.length <= maxID) {
+            processOfNode = new int[maxID + 1];
+        }
+        // use several logical processes per worker to balance the load
+        int numProcesses = Math.max(1, Math.min(numNodes, ParallelRoundExecutor.getNumberOfThreads() * 4));
+        while (processes.size() < numProcesses) {
+            processes.add(new LogicalProcess());
+        }
+        while (processes.size() > numProcesses) {
+            processes.remove(processes.size() - 1);
+        }
+        Node[] nodes = new Node[numNodes];
+        int i = 0;
+        for (Node n : SinalgoRuntime.nodes) {
+            nodes[i++] = n;
+        }
+        long[] keys = getMortonKeys(nodes);
+        Integer[] order = new Integer[numNodes];
+        for (i = 0; i < numNodes; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        for (i = 0; i < numNodes; i++) {
+            processOfNode[nodes[order[i]].ID] = (int) ((long) i * numProcesses / numNodes);
+        }
+    }
+
+    /**
+     * Determines the position of each node on a Z-order curve through the
+     * bounding box of all nodes. The coordinates are quantized to 21 bits, whose
+     * bits are then interleaved.
+     *
+     * @param nodes The nodes.
+     * @return For each node, its key on the Z-order curve.
+     */
+    private static long[] getMortonKeys(Node[] nodes) {
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (Node n : nodes) {
+            Position p = n.getPosition();
+            minX = Math.min(minX, p.xCoord);
+            minY = Math.min(minY, p.yCoord);
+            minZ = Math.min(minZ, p.zCoord);
+            maxX = Math.max(maxX, p.xCoord);
+            maxY = Math.max(maxY, p.yCoord);
+            maxZ = Math.max(maxZ, p.zCoord);
+        }
+        // use the same scale in all dimensions, such that the regions are compact
+        double extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        double scale = extent > 0 ? ((1 << 21) - 1) / extent : 0;
+        long[] keys = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Position p = nodes[i].getPosition();
+            keys[i] = spreadBits((long) ((p.xCoord - minX) * scale))
+                    | spreadBits((long) ((p.yCoord - minY) * scale)) << 1
+                    | spreadBits((long) ((p.zCoord - minZ) * scale)) << 2;
+        }
+        return keys;
+    }
+
+    /**
+     * Spreads the lowest 21 bits of a number, such that two zero bits follow each
+     * bit.
+     */
+    private static long spreadBits(long v) {
+        v &= 0x1FFFFF;
+        v = (v | v << 32) & 0x1F00000000FFFFL;
+        v = (v | v << 16) & 0x1F0000FF0000FFL;
+        v = (v | v << 8) & 0x100F00F00F00F00FL;
+        v = (v | v << 4) & 0x10C30C30C30C30C3L;
+        v = (v | v << 2) & 0x1249249249249249L;
+        return v;
+    }
+
+    /**
+     * @return True if the calling thread may be executing the events of a window
+     * concurrently with other threads.
+     */
+    public static boolean isParallelPhase() {
+        return parallelPhase;
+    }
+
+    /**
+     * @return The time of the event the calling thread is handling. Must only be
+     * called while {@link #isParallelPhase()} returns true.
+     */
+    static double getLocalTime() {
+        LogicalProcess lp = currentProcess.get();
+        return lp == null ? Global.currentTime : lp.current.time;
+    }
+
+    /**
+     * Removes the events of the next window from the event queue and executes
+     * them. If the message transmission model does not guarantee a minimum delay,
+     * the window only contains the events that happen at the same time as the
+     * next event.
+     * <p>
+     * No window is executed if the next event is not executed on a node, or if a
+     * previous window could not be ended early enough.
+     *
+     * @param maxEvents The maximum number of events to take from the event queue.
+     * @return The number of executed events, 0 if no window was executed, in
+     * which case the caller should handle the next event sequentially.
+     */
+    public static long executeWindow(long maxEvents) {
+        lastEvent = null;
+        Event first = SinalgoRuntime.eventQueue.peek();
+        if (sequentialFallback || maxEvents < 2 || first == null || !first.isNodeEvent()) {
+            return 0;
+        }
+        if (processes.isEmpty()) {
+            partitionNodes();
+        }
+        windowStart = first.time;
+        double end = first.time + Math.max(0, Global.messageTransmissionModel.getMinimumDelay());
+        windowEnd = end;
+        int numEvents = 0;
+        for (Event e = first; e != null && numEvents < maxEvents && isInWindow(e.time)
+                && e.isNodeEvent(); e = SinalgoRuntime.eventQueue.peek()) {
+            SinalgoRuntime.eventQueue.getNextEvent(); // returns e
+            LogicalProcess lp = processes.get(getProcessIndex(getExecutingNode(e)));
+            if (lp.numEvents == 0) {
+                activeProcesses.add(lp);
+            }
+            lp.addEvent(e, numEvents++);
+        }
+
+        Global.currentTime = first.time;
+        Throwable failure = null;
+        parallelPhase = true;
+        Distribution.setRandomLocked(true);
+        try {
+            if (activeProcesses.size() == 1) {
+                activeProcesses.get(0).call();
+            } else {
+                List<Future<Void>> results = ParallelRoundExecutor.getPool().invokeAll(activeProcesses);
+                for (Future<Void> f : results) {
+                    if (failure == null) {
+                        failure = ParallelRoundExecutor.getFailure(f);
+                    }
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            parallelPhase = false;
+            Distribution.setRandomLocked(false);
+        }
+
+        long executed = 0;
+        double lastTime = Global.currentTime;
+        boolean overrun = false;
+        WindowEvent last = null;
+        for (LogicalProcess lp : activeProcesses) {
+            executed += lp.numExecuted;
+            lastTime = Math.max(lastTime, lp.lastTime);
+            if (failure == null) {
+                if (windowEnd < end) { // the window was ended early
+                    overrun |= lp.hasExecutedEventsAfterWindow();
+                    lp.deferRemainingEvents();
+                }
+                operations.addAll(lp.operations);
+                if (lp.nextEvent > 0
+                        && (last == null || lp.events.get(lp.nextEvent - 1).index > last.index)) {
+                    last = lp.events.get(lp.nextEvent - 1);
+                }
+            }
+        }
+        if (failure == null) {
+            lastEvent = last.event;
+            // schedule the messages and timers in the order of a sequential execution
+            operations.sort(ParallelEventExecutor::compare);
+            for (DeferredOperation op : operations) {
+                Global.currentTime = op.creator.time;
+                op.operation.run();
+            }
+            // the timers executed within the window, and the events put back into the queue
+            EventQueue.eventNumber += executed - numEvents;
+        }
+        operations.clear();
+        Global.currentTime = lastTime;
+        for (LogicalProcess lp : activeProcesses) {
+            lp.clear();
+        }
+        activeProcesses.clear();
+        ParallelRoundExecutor.rethrow(failure);
+        if (overrun) {
+            sequentialFallback = true;
+            Main.warning("A node started a timer that goes off before the minimum message delay has passed, "
+                    + "either on a node that is handled by a different worker thread, or as a global timer. "
+                    + "As events after this time had already been executed in parallel, the order of the events "
+                    + "may differ from a sequential execution. All further events are executed sequentially.");
+        }
+        return executed;
+    }
+
+    /**
+     * @param time The time of an event.
+     * @return True if an event at the given time may be executed in the current
+     * window.
+     */
+    private static boolean isInWindow(double time) {
+        return time < windowEnd || time == windowStart;
+    }
+
+    /**
+     * Ends the current window early, such that no events at or after the given
+     * time are started anymore.
+     *
+     * @param time The time at which the window ends.
+     */
+    private static synchronized void endWindowAt(double time) {
+        if (time < windowEnd) {
+            windowEnd = time;
+        }
+    }
+
+    /**
+     * @return The last event of the previously executed window that was taken from
+     * the event queue. This event has not been freed, such that it can still be
+     * displayed.
+     */
+    public static Event getLastEvent() {
+        return lastEvent;
+    }
+
+    /**
+     * Records an operation that schedules a new event, such as sending a message.
+     * The operation is executed after the current window, where
+     * {@link Global#currentTime} is set to the time of the event that recorded the
+     * operation.
+     * <p>
+     * Must only be called while {@link #isParallelPhase()} returns true.
+     *
+     * @param operation The operation to execute after the current window.
+     */
+    public static void defer(Runnable operation) {
+        LogicalProcess lp = getCurrentProcess();
+        WindowEvent creator = lp.current;
+        lp.operations.add(new DeferredOperation(creator, creator.numCreated++, operation));
+    }
+
+    /**
+     * Schedules a timer that was started while the events of a window are
+     * executed. If the timer goes off within the window on a node of the current
+     * logical process, it is executed by the current logical process. Otherwise,
+     * it is inserted into the event queue after the window. A global timer or a
+     * timer on a node of a different logical process that goes off within the
+     * window ends the window early.
+     * <p>
+     * Must only be called while {@link #isParallelPhase()} returns true.
+     *
+     * @param timer The timer to schedule.
+     */
+    public static void scheduleTimer(Timer timer) {
+        LogicalProcess lp = getCurrentProcess();
+        double fireTime = timer.getFireTime();
+        if (fireTime < windowEnd) {
+            Node target = timer.getTargetNode();
+            if (target != null && processes.get(getProcessIndex(target)) == lp) {
+                WindowEvent creator = lp.current;
+                lp.localEvents.add(lp.newWindowEvent(null, timer, fireTime, creator, creator.numCreated++));
+                return;
+            }
+            endWindowAt(fireTime);
+        }
+        defer(() -> SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(timer, fireTime)));
+    }
+
+    private static LogicalProcess getCurrentProcess() {
+        LogicalProcess lp = currentProcess.get();
+        if (lp == null) {
+            throw new SinalgoFatalException("Events may only be scheduled by the thread that handles the event "
+                    + "while the events are executed in parallel.");
+        }
+        return lp;
+    }
+
+    /**
+     * @param e An event of the event queue.
+     * @return The node whose code is executed when the event is handled.
+     */
+    private static Node getExecutingNode(Event e) {
+        if (e instanceof PacketEvent) {
+            Packet p = ((PacketEvent) e).packet;
+            if (!p.positiveDelivery) {
+                return p.origin; // the sender may be notified that the packet was dropped
+            }
+        }
+        return e.getEventNode();
+    }
+
+    private static int getProcessIndex(Node n) {
+        if (n.ID < processOfNode.length) {
+            return processOfNode[n.ID];
+        }
+        return 0; // the node was added after the nodes were partitioned
+    }
+
+    /**
+     * Compares two events of a window according to the order in which a
+     * sequential execution handles them. For events with the same time, the events
+     * taken from the event queue come first, in the order of the queue. An event
+     * created within the window follows the other events created within the window
+     * in the order of their creation.
+     */
+    private static int compare(WindowEvent a, WindowEvent b) {
+        if (a == b) {
+            return 0;
+        }
+        int c = Double.compare(a.time, b.time);
+        if (c != 0) {
+            return c;
+        }
+        if (a.creator == null || b.creator == null) {
+            if (a.creator == b.creator) {
+                return Integer.compare(a.index, b.index);
+            }
+            return a.creator == null ? -1 : 1;
+        }
+        c = compare(a.creator, b.creator);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    }
+
+    private static int compare(DeferredOperation a, DeferredOperation b) {
+        int c = compare(a.creator, b.creator);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    }
+
+    /**
+     * An event that is handled within the current window. This is either an event
+     * of the event queue, or a timer that a node set on itself within the window.
+     */
+    private static class WindowEvent {
+
+        private Event event; // the event from the event queue, null for timers set within the window
+        private Timer timer; // the timer set within the window
+        private double time;
+        private Node node; // the node on which the event executes
+        private WindowEvent creator; // the event that created this event, null for events of the queue
+        private int index; // the position in the event queue, or among the events created by the creator
+        private int numCreated; // the number of events and operations created by this event
+    }
+
+    /**
+     * A send operation or timer recorded in the current window.
+     */
+    private static class DeferredOperation {
+
+        private final WindowEvent creator;
+        private final int index;
+        private final Runnable operation;
+
+        private DeferredOperation(WindowEvent creator, int index, Runnable operation) {
+            this.creator = creator;
+            this.index = index;
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * A range of nodes whose events are handled sequentially by one worker.
+     */
+    private static class LogicalProcess implements Callable<Void> {
+
+        // the events taken from the event queue, in the order of the queue
+        private final ArrayList<WindowEvent> events = new ArrayList<>();
+        private int numEvents = 0;
+        // the index of the first event taken from the event queue that was not executed
+        private int nextEvent = 0;
+        // the timers set within the window
+        private final PriorityQueue<WindowEvent> localEvents = new PriorityQueue<>(ParallelEventExecutor::compare);
+        // the timers set and executed within the window, which may still be referenced by
+        // the events and operations they created
+        private final ArrayList<WindowEvent> executedLocalEvents = new ArrayList<>();
+        // recycled instances
+        private final ArrayList<WindowEvent> unused = new ArrayList<>();
+
+        private final ArrayList<DeferredOperation> operations = new ArrayList<>();
+
+        private WindowEvent current;
+        private Node currentNode;
+        private int numExecuted;
+        private double lastTime;
+
+        private WindowEvent newWindowEvent(Event event, Timer timer, double time, WindowEvent creator, int index) {
+            WindowEvent we = unused.isEmpty() ? new WindowEvent() : unused.remove(unused.size() - 1);
+            we.event = event;
+            we.timer = timer;
+            we.time = time;
+            we.node = event == null ? timer.getTargetNode() : getExecutingNode(event);
+            we.creator = creator;
+            we.index = index;
+            we.numCreated = 0;
+            return we;
+        }
+
+        private void addEvent(Event e, int index) {
+            events.add(newWindowEvent(e, null, e.time, null, index));
+            numEvents++;
+        }
+
+        @Override
+        public Void call() {
+            currentProcess.set(this);
+            try {
+                while (true) {
+                    WindowEvent local = localEvents.peek();
+                    boolean fromQueue = nextEvent < numEvents
+                            && (local == null || compare(events.get(nextEvent), local) < 0);
+                    WindowEvent next = fromQueue ? events.get(nextEvent) : local;
+                    if (next == null || !isInWindow(next.time)) { // the window may have been ended early
+                        break;
+                    }
+                    if (fromQueue) {
+                        nextEvent++;
+                    } else {
+                        localEvents.poll();
+                        executedLocalEvents.add(next);
+                    }
+                    current = next;
+                    currentNode = current.node;
+                    if (current.event != null) {
+                        current.event.handle();
+                    } else {
+                        current.timer.fire();
+                    }
+                    lastTime = current.time;
+                    numExecuted++;
+                }
+            } finally {
+                currentProcess.remove();
+            }
+            return null;
+        }
+
+        /**
+         * @return True if this logical process executed an event that a sequential
+         * execution would only have handled after the end of the window. Must
+         * only be called after the window was executed.
+         */
+        private boolean hasExecutedEventsAfterWindow() {
+            if (nextEvent > 0 && events.get(nextEvent - 1).time > windowEnd) {
+                return true;
+            }
+            for (WindowEvent we : executedLocalEvents) {
+                // a timer set within the window may follow a timer at the same time
+                if (we.time >= windowEnd) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Puts the events of the window that were not executed back into the event
+         * queue after the window was ended early. The timers set within the window
+         * are scheduled with the other deferred operations.
+         */
+        private void deferRemainingEvents() {
+            for (int i = nextEvent; i < numEvents; i++) {
+                WindowEvent we = events.get(i);
+                SinalgoRuntime.eventQueue.insert(we.event);
+                we.event = null;
+            }
+            for (WindowEvent we : localEvents) {
+                Timer timer = we.timer;
+                double fireTime = we.time;
+                operations.add(new DeferredOperation(we.creator, we.index,
+                        () -> SinalgoRuntime.eventQueue.insert(TimerEvent.getNewTimerEvent(timer, fireTime))));
+            }
+        }
+
+        /**
+         * Frees the events of the completed window and resets this logical process.
+         */
+        private void clear() {
+            for (WindowEvent we : events) {
+                if (we.event != null && we.event != lastEvent) {
+                    we.event.free();
+                }
+                we.event = null;
+                unused.add(we);
+            }
+            events.clear();
+            numEvents = 0;
+            nextEvent = 0;
+            unused.addAll(executedLocalEvents);
+            executedLocalEvents.clear();
+            while (!localEvents.isEmpty()) { // only after a failure
+                unused.add(localEvents.poll());
+            }
+            for (WindowEvent we : unused) {
+                we.timer = null;
+                we.node = null;
+                we.creator = null;
+            }
+            operations.clear();
+            current = null;
+            currentNode = null;
+            numExecuted = 0;
+            lastTime = 0;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.SinalgoWrappedException;
+import sinalgo.exception.WrongConfigurationException;
+import sinalgo.models.ConnectivityModel;
+import sinalgo.models.ConnectivityModelHelper;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.RoundOutbox;
+import sinalgo.tools.statistics.Distribution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <b>This class is framework internal and should not be used by the project
+ * developer.</b>
+ * <p>
+ * Executes the per-node phases of a synchronous round on several worker
+ * threads. This class is only used if <code>parallelRounds</code> is enabled
+ * in the configuration file.
+ * <p>
+ * The nodes are split into consecutive partitions (in the order in which they
+ * are enumerated by the node collection), and each partition is handled by one
+ * worker at a time. All messages sent by the nodes of a partition are stored in
+ * the {@link RoundOutbox} of the partition and are delivered once all nodes have
+ * finished their step, partition by partition. Therefore, the messages are
+ * delivered in the same order as in a sequential round, and a simulation with a
+ * fixed seed obtains the same result with or without parallel rounds.
+ * <p>
+ * This requires that a message is never received in the round in which it was
+ * sent, i.e., the message transmission model needs to report a positive
+ * minimum delay. Furthermore, the random number generator of the simulation
+ * is locked while the nodes are executed in parallel (see
+ * {@link Distribution#setRandomLocked(boolean)}), as the order of the drawn
+ * numbers would depend on the scheduling of the threads.
+ * <p>
+ * Likewise, when updating the connections, the workers only determine the
+ * neighbors of the nodes. The edges are added and removed afterwards in the
+ * order of the nodes, as adding or removing an edge may affect the end node of
+ * the edge as well.
+ * <p>
+ * Note that this requires the nodes not to access the state of other nodes (or
+ * any other shared state) in their step.
+ */
+public class ParallelRoundExecutor {
+
+    private enum Phase {
+        CONNECTIVITY, STEP
+    }
+
+    private static ForkJoinPool pool = null;
+
+    // the snapshot of all nodes, in the order of the node collection
+    private static Node[] nodes = new Node[0];
+
+    private static List<Partition> partitions = new ArrayList<>();
+
+    /**
+     * Updates the connections of all nodes. The neighbors of the nodes are
+     * determined in parallel, whereas the edges are added and removed
+     * sequentially.
+     */
+    public static void updateConnections() {
+        run(Phase.CONNECTIVITY);
+        for (Partition p : partitions) {
+            int start = 0;
+            for (int i = p.from; i < p.to; i++) {
+                int end = p.newNeighborsEnd[i - p.from];
+                if (end < 0) { // the connectivity model does not support the parallel update
+                    nodes[i].updateConnections();
+                } else {
+                    nodes[i].updateConnections(p.newNeighbors.subList(start, end));
+                    start = end;
+                }
+            }
+            p.newNeighbors.clear();
+        }
+    }
+
+    /**
+     * Performs the step of all nodes in parallel, and delivers the messages they
+     * sent once all nodes have finished.
+     *
+     * @throws WrongConfigurationException if the message transmission model does not
+     *                                     guarantee a positive minimum delay, or if a
+     *                                     node draws a random number in its step.
+     */
+    public static void stepNodes() {
+        if (!(Global.messageTransmissionModel.getMinimumDelay() > 0)) {
+            throw new WrongConfigurationException("The nodes can only perform their step in parallel if no message "
+                    + "is received in the round in which it is sent. The message transmission model needs to report "
+                    + "a positive minimum delay (see MessageTransmissionModel.getMinimumDelay()), or 'parallelRounds' "
+                    + "needs to be turned off in the configuration file.");
+        }
+        RoundOutbox.setParallelPhase(true);
+        List<Future<Void>> results;
+        try {
+            results = start(Phase.STEP);
+        } finally {
+            RoundOutbox.setParallelPhase(false);
+        }
+        // deliver the messages in the order of the partitions, up to the first
+        // partition that failed.
+        Throwable failure = null;
+        for (int i = 0; i < partitions.size(); i++) {
+            Partition p = partitions.get(i);
+            if (failure != null) {
+                p.outbox.clear();
+                continue;
+            }
+            p.outbox.flush();
+            failure = getFailure(results.get(i));
+        }
+        rethrow(failure);
+    }
+
+    /**
+     * Executes the given phase on all partitions and waits until all of them
+     * finished.
+     *
+     * @param phase The phase to execute.
+     */
+    private static void run(Phase phase) {
+        List<Future<Void>> results = start(phase);
+        for (Future<Void> f : results) {
+            rethrow(getFailure(f));
+        }
+    }
+
+    private static List<Future<Void>> start(Phase phase) {
+        preparePartitions(phase);
+        Distribution.setRandomLocked(true);
+        try {
+            return getPool().invokeAll(partitions);
+        } finally {
+            Distribution.setRandomLocked(false);
+        }
+    }
+
+    /**
+     * Takes a snapshot of all nodes and assigns them to the partitions.
+     *
+     * @param phase The phase the partitions are going to execute.
+     */
+    private static void preparePartitions(Phase phase) {
+        int numNodes = SinalgoRuntime.nodes.size();
+        if (nodes.length < numNodes) {
+            nodes = new Node[numNodes];
+        }
+        int i = 0;
+        for (Node n : SinalgoRuntime.nodes) {
+            nodes[i++] = n;
+        }
+        // use several partitions per worker to balance the load
+        int numPartitions = Math.max(1, Math.min(numNodes, getNumberOfThreads() * 4));
+        while (partitions.size() < numPartitions) {
+            partitions.add(new Partition());
+        }
+        while (partitions.size() > numPartitions) {
+            partitions.remove(partitions.size() - 1);
+        }
+        for (int j = 0; j < numPartitions; j++) {
+            Partition p = partitions.get(j);
+            p.phase = phase;
+            p.from = (int) ((long) numNodes * j / numPartitions);
+            p.to = (int) ((long) numNodes * (j + 1) / numPartitions);
+        }
+    }
+
+    static Throwable getFailure(Future<Void> result) {
+        try {
+            result.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    static void rethrow(Throwable failure) {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new SinalgoWrappedException(failure);
+    }
+
+    /**
+     * @return The number of worker threads to use, as specified in the
+     * configuration file.
+     */
+    static int getNumberOfThreads() {
+        if (Configuration.numberOfWorkerThreads > 0) {
+            return Configuration.numberOfWorkerThreads;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    static ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(getNumberOfThreads());
+        }
+        return pool;
+    }
+
+    /**
+     * A consecutive range of nodes, together with the outbox that collects the
+     * messages sent by these nodes.
+     */
+    private static class Partition implements Callable<Void> {
+
+        private Phase phase;
+        private int from; // the index of the first node of this partition
+        private int to; // the index after the last node of this partition
+        private final RoundOutbox outbox = new RoundOutbox();
+
+        // the new neighbors of all nodes of this partition, one after the other
+        private final ArrayList<Node> newNeighbors = new ArrayList<>();
+        // for each node, the index in newNeighbors after its last new neighbor, -1 if
+        // its connections need to be updated sequentially
+        private int[] newNeighborsEnd = new int[0];
+
+        @Override
+        public Void call() {
+            switch (phase) {
+                case CONNECTIVITY:
+                    collectConnections();
+                    break;
+                case STEP:
+                    step();
+                    break;
+            }
+            return null;
+        }
+
+        private void collectConnections() {
+            if (newNeighborsEnd.length < to - from) {
+                newNeighborsEnd = new int[to - from];
+            }
+            for (int i = from; i < to; i++) {
+                ConnectivityModel cm = nodes[i].getConnectivityModel();
+                if (cm instanceof ConnectivityModelHelper
+                        && ((ConnectivityModelHelper) cm).usesParallelUpdate()) {
+                    ((ConnectivityModelHelper) cm).collectConnections(nodes[i], newNeighbors);
+                    newNeighborsEnd[i - from] = newNeighbors.size();
+                } else {
+                    newNeighborsEnd[i - from] = -1;
+                }
+            }
+        }
+
+        private void step() {
+            outbox.assignToCurrentThread();
+            try {
+                for (int i = from; i < to; i++) {
+                    nodes[i].step();
+                }
+            } finally {
+                outbox.release();
+            }
+        }
+    }
+}
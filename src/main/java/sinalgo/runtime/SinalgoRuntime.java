@@ -56,11 +56,11 @@ import sinalgo.runtime.nodeCollection.NodeCollectionInterface;
 import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
 import sinalgo.tools.Tools;
 import sinalgo.tools.Tuple;
+import sinalgo.tools.storage.DoublyLinkedList;
 
 import java.io.FileNotFoundException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Enumeration;
 import java.util.Vector;
 
 /**
@@ -196,6 +196,16 @@ public abstract class SinalgoRuntime {
                     + "In the asynchronous mode mobility is not allowed.");
         }
 
+        if (Configuration.parallelRounds && Configuration.interference && !Configuration.asynchronousMode) {
+            throw new SinalgoFatalException("You tried to run the simulation with parallel rounds and interference is turned on. "
+                    + "The nodes can only perform their step in parallel if interference is turned off.");
+        }
+
+        if (Configuration.parallelEvents && Configuration.interference && Configuration.asynchronousMode) {
+            throw new SinalgoFatalException("You tried to run the simulation with parallel events and interference is turned on. "
+                    + "The events can only be executed in parallel if interference is turned off.");
+        }
+
         int numberOfParameters = args.length;
         for (int i = 0; i < numberOfParameters; i++) {
 
@@ -375,7 +385,9 @@ public abstract class SinalgoRuntime {
      * @param n The node to add.
      */
     public static void addNode(Node n) {
+        n.acquirePositionSlot(); // if the node was removed before
         nodes.addNode(n);
+        n.invalidateConnections();
         Global.customGlobal.nodeAddedEvent(n);
         if (Global.isGuiMode) {
             try {
@@ -395,19 +407,18 @@ public abstract class SinalgoRuntime {
      * This method removes a node from the collection and removes all edges incident
      * to this node. This method is called by the popup method from the node.
      * <p>
-     * This method is quite expensive, as it loops over all nodes in the network to
-     * test for nodes that may maintain a connection to this node.
+     * The edges pointing to this node are found through the list of incoming
+     * connections of the node, such that only the neighbors of the node are
+     * visited.
      *
      * @param n The node to remove.
      */
     public static void removeNode(Node n) {
         // remove the outgoing connections from neighbor to this nodes
-        // TODO: This is really expensive! Can't we have a better data structure?
-        // The problem so far is the 'getRandomNode' method
-        Enumeration<Node> nodeEnumer = nodes.getNodeEnumeration();
-        while (nodeEnumer.hasMoreElements()) {
-            Node node = nodeEnumer.nextElement();
-            Edge e = node.outgoingConnections.remove(node, n); // does only remove it it really exists
+        DoublyLinkedList<Edge> incoming = n.getIncomingConnections();
+        while (!incoming.isEmpty()) {
+            Edge in = incoming.pop();
+            Edge e = in.startNode.outgoingConnections.remove(in.startNode, n); // does only remove it it really exists
             if (e != null) {
                 e.free();
             }
@@ -415,6 +426,7 @@ public abstract class SinalgoRuntime {
         n.outgoingConnections.removeAndFreeAllEdges();
 
         nodes.removeNode(n);
+        n.releasePositionSlot();
         eventQueue.removeAllEventsForThisNode(n);
         if (Global.isGuiMode) {
             // un highlight this node
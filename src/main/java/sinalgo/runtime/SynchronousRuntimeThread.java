@@ -111,8 +111,14 @@ public class SynchronousRuntimeThread extends Thread {
 
             // Before the nodes perform their step, the entire network graph is updated
             // such that all nodes see the same network when they perform their step.
-            for (Node n : SinalgoRuntime.nodes) {
-                n.updateConnections();
+            if (Configuration.incrementalConnectivity) {
+                IncrementalConnectivity.updateConnections();
+            } else if (Configuration.parallelRounds) {
+                ParallelRoundExecutor.updateConnections();
+            } else {
+                for (Node n : SinalgoRuntime.nodes) {
+                    n.updateConnections();
+                }
             }
 
             // Test all messages still being sent for interference
@@ -122,8 +128,12 @@ public class SynchronousRuntimeThread extends Thread {
 
             // Perform the step for each node
             try {
-                for (Node n : SinalgoRuntime.nodes) {
-                    n.step();
+                if (Configuration.parallelRounds) {
+                    ParallelRoundExecutor.stepNodes();
+                } else {
+                    for (Node n : SinalgoRuntime.nodes) {
+                        n.step();
+                    }
                 }
             } catch (WrongConfigurationException wCE) {
                 Main.minorError(wCE); // in gui, a popup is shown. in batch, exits.
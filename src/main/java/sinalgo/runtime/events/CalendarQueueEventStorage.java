@@ -0,0 +1,388 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+import sinalgo.exception.SinalgoFatalException;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * An event storage implementing a calendar queue (R. Brown, 1988).
+ * <p>
+ * The time axis is divided into 'days' of equal width, which are mapped
+ * cyclically onto an array of buckets, the 'calendar'. Each bucket holds a
+ * sorted list of its events. To find the next event, the calendar is scanned
+ * starting from the day of the last event. If the events are evenly
+ * distributed over time, which is the case for most message transmission
+ * models, adding and removing an event takes amortized constant time.
+ * <p>
+ * The number of buckets is doubled (halved) whenever the number of events
+ * exceeds twice (drops below half) the number of buckets. Upon resizing, the
+ * width of the days is recomputed from the separation of the next events.
+ */
+public class CalendarQueueEventStorage implements EventStorage {
+
+    private static final int MIN_BUCKETS = 16;
+    // the number of events used to estimate the width of the days
+    private static final int SAMPLE_SIZE = 25;
+
+    private Event[] heads = new Event[MIN_BUCKETS]; // the first event of each bucket
+    private Event[] tails = new Event[MIN_BUCKETS]; // the last event of each bucket
+    private double width = 1;
+    private int size = 0;
+
+    // the day where the search for the next event starts. No event in this
+    // storage executes before this day.
+    private long currentDay = Long.MIN_VALUE;
+
+    private boolean resizeEnabled = true;
+
+    @Override
+    public void add(Event e) {
+        if (e.queueIndex >= 0) {
+            throw new SinalgoFatalException("An event was added twice to the event queue.");
+        }
+        long day = getDay(e.time);
+        if (size == 0 || day < currentDay) {
+            currentDay = day;
+        }
+        insert(e, getBucket(day));
+        size++;
+        if (size > 2 * heads.length && resizeEnabled) {
+            resize(2 * heads.length);
+        }
+    }
+
+    @Override
+    public Event peek() {
+        if (size == 0) {
+            return null;
+        }
+        return heads[findNext()];
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        Event e = heads[findNext()];
+        unlink(e);
+        size--;
+        if (size < heads.length / 2 && heads.length > MIN_BUCKETS && resizeEnabled) {
+            resize(heads.length / 2);
+        }
+        return e;
+    }
+
+    @Override
+    public boolean remove(Event e) {
+        if (e.queueIndex < 0 || e.queueIndex >= heads.length || !contains(e)) {
+            return false;
+        }
+        unlink(e);
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Event> filter) {
+        boolean changed = false;
+        for (Event head : heads) {
+            Event e = head;
+            while (e != null) {
+                Event next = e.queueNext;
+                if (filter.test(e)) {
+                    unlink(e);
+                    size--;
+                    changed = true;
+                }
+                e = next;
+            }
+        }
+        if (changed && size < heads.length / 2 && heads.length > MIN_BUCKETS) {
+            resize(Math.max(MIN_BUCKETS, Integer.highestOneBit(Math.max(1, size))));
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < heads.length; i++) {
+            Event e = heads[i];
+            while (e != null) {
+                Event next = e.queueNext;
+                e.queueIndex = -1;
+                e.queueNext = e.queuePrevious = null;
+                e = next;
+            }
+            heads[i] = tails[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+            private int bucket = -1;
+            private Event next = null;
+
+            {
+                advance();
+            }
+
+            private void advance() {
+                if (next != null) {
+                    next = next.queueNext;
+                }
+                while (next == null && bucket + 1 < heads.length) {
+                    next = heads[++bucket];
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Event next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Event e = next;
+                advance();
+                return e;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Event> sortedIterator() {
+        Event[] events = new Event[size];
+        int i = 0;
+        for (Event e : this) {
+            events[i++] = e;
+        }
+        Arrays.sort(events, new EventQueue.EventComparator());
+        return Arrays.asList(events).iterator();
+    }
+
+    /**
+     * @return The index of the bucket holding the next event. The storage must not
+     * be empty.
+     */
+    private int findNext() {
+        long day = currentDay;
+        int bucket = getBucket(day);
+        // scan the calendar for one year, starting at the current day
+        for (int i = 0; i < heads.length; i++) {
+            Event e = heads[bucket];
+            if (e != null && getDay(e.time) <= day) {
+                currentDay = getDay(e.time);
+                return bucket;
+            }
+            day++;
+            bucket = bucket + 1 == heads.length ? 0 : bucket + 1;
+        }
+        // there is no event in the next year - search the earliest event directly
+        int min = -1;
+        for (int i = 0; i < heads.length; i++) {
+            if (heads[i] != null && (min < 0 || isBefore(heads[i], heads[min]))) {
+                min = i;
+            }
+        }
+        currentDay = getDay(heads[min].time);
+        return min;
+    }
+
+    /**
+     * Changes the number of buckets and recomputes the width of the days.
+     *
+     * @param numBuckets The new number of buckets.
+     */
+    private void resize(int numBuckets) {
+        double newWidth = estimateWidth();
+        Event[] oldHeads = heads;
+        heads = new Event[numBuckets];
+        tails = new Event[numBuckets];
+        width = newWidth;
+        currentDay = Long.MAX_VALUE;
+        for (Event head : oldHeads) {
+            Event e = head;
+            while (e != null) {
+                Event next = e.queueNext;
+                long day = getDay(e.time);
+                currentDay = Math.min(currentDay, day);
+                insert(e, getBucket(day));
+                e = next;
+            }
+        }
+    }
+
+    /**
+     * Estimates the width of the days from the average separation of the next
+     * events to execute.
+     *
+     * @return The new width of the days.
+     */
+    private double estimateWidth() {
+        int n = Math.min(size, SAMPLE_SIZE);
+        if (n < 2) {
+            return width;
+        }
+        // take the next events out of the queue and put them back afterwards
+        resizeEnabled = false;
+        Event[] sample = new Event[n];
+        for (int i = 0; i < n; i++) {
+            sample[i] = poll();
+        }
+        for (int i = 0; i < n; i++) {
+            add(sample[i]);
+        }
+        resizeEnabled = true;
+
+        double separation = (sample[n - 1].time - sample[0].time) / (n - 1);
+        // ignore large separations, which would result in too wide days
+        double sum = 0;
+        int count = 0;
+        for (int i = 1; i < n; i++) {
+            double d = sample[i].time - sample[i - 1].time;
+            if (d <= 2 * separation) {
+                sum += d;
+                count++;
+            }
+        }
+        if (count == 0 || sum <= 0 || Double.isInfinite(sum) || Double.isNaN(sum)) {
+            return width; // e.g. all events execute at the same time
+        }
+        return 3 * sum / count;
+    }
+
+    /**
+     * Inserts an event into the sorted list of a bucket.
+     *
+     * @param e      The event to insert.
+     * @param bucket The bucket of the event.
+     */
+    private void insert(Event e, int bucket) {
+        e.queueIndex = bucket;
+        Event pos = tails[bucket];
+        // most events are added after all events of their day, in particular if
+        // several events execute at the same time: search from the tail
+        while (pos != null && isBefore(e, pos)) {
+            pos = pos.queuePrevious;
+        }
+        e.queuePrevious = pos;
+        if (pos == null) {
+            e.queueNext = heads[bucket];
+            heads[bucket] = e;
+        } else {
+            e.queueNext = pos.queueNext;
+            pos.queueNext = e;
+        }
+        if (e.queueNext == null) {
+            tails[bucket] = e;
+        } else {
+            e.queueNext.queuePrevious = e;
+        }
+    }
+
+    /**
+     * Removes an event from the list of its bucket.
+     *
+     * @param e The event to remove.
+     */
+    private void unlink(Event e) {
+        int bucket = e.queueIndex;
+        if (e.queuePrevious == null) {
+            heads[bucket] = e.queueNext;
+        } else {
+            e.queuePrevious.queueNext = e.queueNext;
+        }
+        if (e.queueNext == null) {
+            tails[bucket] = e.queuePrevious;
+        } else {
+            e.queueNext.queuePrevious = e.queuePrevious;
+        }
+        e.queueNext = e.queuePrevious = null;
+        e.queueIndex = -1;
+    }
+
+    /**
+     * @return True if the given event is stored in the bucket its queueIndex
+     * points to.
+     */
+    private boolean contains(Event e) {
+        for (Event x = heads[e.queueIndex]; x != null; x = x.queueNext) {
+            if (x == e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The day on which an event with the given execution time executes.
+     */
+    private long getDay(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    /**
+     * @return The bucket holding the events of the given day.
+     */
+    private int getBucket(long day) {
+        return (int) Math.floorMod(day, (long) heads.length);
+    }
+
+    /**
+     * @return True if event a executes before event b. Corresponds to the ordering
+     * of the {@link EventQueue.EventComparator}.
+     */
+    private static boolean isBefore(Event a, Event b) {
+        return a.time < b.time || (a.time == b.time && a.id < b.id);
+    }
+}
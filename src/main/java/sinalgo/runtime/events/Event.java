@@ -54,6 +54,16 @@ public abstract class Event implements DoublyLinkedListEntry {
     long id = 0;
     protected static long nextId = 1;
 
+    // the position of this event in an array based event storage, -1 if this event
+    // is not stored in such a storage
+    int queueIndex = -1;
+
+    // the neighbors of this event in a list based event storage
+    Event queueNext, queuePrevious;
+
+    // set if this event was cancelled while still stored in the event queue
+    boolean cancelled = false;
+
     /**
      * Returns a string representation of the time when this event executes,
      * truncated to the given number of digits.
@@ -36,23 +36,54 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package sinalgo.runtime.events;
 
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.SinalgoFatalException;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
-import sinalgo.runtime.SinalgoRuntime;
+import sinalgo.runtime.Global;
+import sinalgo.tools.storage.DoublyLinkedList;
 
-import java.util.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Vector;
 
 /**
  * The queue that stores the events of the asynchronous mode. The entries
  * (events) are sorted according to their execution time so that the first node
  * in the list is the next to execute.
+ * <p>
+ * The events are stored in the {@link EventStorage} specified by the
+ * <code>eventQueueStorage</code> field of the configuration file. In addition,
+ * each node keeps a list of the queued events that concern it, and each edge
+ * keeps a list of the packet events sent over it, such that the events of a
+ * removed node or edge are found without searching the entire queue. Events of
+ * a removed node are only marked as cancelled and skipped later on.
  */
-public class EventQueue extends TreeSet<Event> {
-
-    private static final long serialVersionUID = 4680928451751153953L;
+public class EventQueue implements Iterable<Event> {
 
     private Vector<EventQueueListener> listeners = new Vector<>(5);
 
+    // the data structure holding the events
+    private EventStorage storage;
+
+    // temporary list of the events removed from the storage
+    private Vector<Event> removedEvents = new Vector<>();
+
+    // the number of cancelled events that are still held by the storage
+    private int numCancelledEvents = 0;
+
+    // the events taken out of the storage by pollBatch(), of which the events
+    // before batchNext have been handed out
+    private Event[] batch = new Event[16];
+    private int batchSize = 0;
+    private int batchNext = 0;
+
+    // set if the listeners need to be notified about a change of the queue
+    private boolean notificationPending = false;
+    private long lastNotificationTime = 0;
+
     /**
      * The number of events that have been taken out of the eventQueue. Gets
      * automatically reset with every getNextEvent call.
@@ -60,11 +91,34 @@ public class EventQueue extends TreeSet<Event> {
     public static int eventNumber = 0;
 
     /**
-     * The constructor for the EventQueue. Constructs a TreeSet with the correct
-     * Comparator.
+     * The constructor for the EventQueue. Creates the event storage specified in
+     * the configuration file.
      */
     public EventQueue() {
-        super(new EventComparator());
+        storage = createStorage();
+    }
+
+    /**
+     * Creates the event storage specified in the configuration file.
+     */
+    private static EventStorage createStorage() {
+        String name = Configuration.eventQueueStorage;
+        try {
+            Class<?> c = Class.forName(name);
+            return (EventStorage) c.getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new SinalgoFatalException("Cannot find the class " + name
+                    + " which contains the implementation for the event queue. Please check the eventQueueStorage field in the config file.");
+        } catch (ClassCastException e) {
+            throw new SinalgoFatalException("The class " + name + " does not implement the EventStorage interface.");
+        } catch (NoSuchMethodException | IllegalArgumentException e) {
+            throw new SinalgoFatalException("The event storage " + name + " must provide a constructor taking no arguments.\n\n"
+                    + e.getMessage());
+        } catch (InstantiationException | IllegalAccessException | SecurityException e) {
+            throw new SinalgoFatalException("Cannot generate the event storage object:\n\n" + e.getMessage());
+        } catch (InvocationTargetException e) {
+            throw new SinalgoFatalException("Exception while instanciating " + name + ":\n\n" + e.getCause().getMessage());
+        }
     }
 
     /**
@@ -73,16 +127,84 @@ public class EventQueue extends TreeSet<Event> {
      * @return The next event in the queue, null if there is none.
      */
     public Event getNextEvent() {
-        try {
-            Event e = this.first();
-            this.remove(e);
+        Event e = pollStorage();
+        if (e != null) {
+            unregister(e);
             eventNumber++;
-            notifyListeners();
-            return e;
-        } catch (NoSuchElementException nSEE) {
-            notifyListeners();
+        }
+        notifyListeners();
+        return e;
+    }
+
+    /**
+     * Removes all events that happen at the time of the next event from the
+     * queue, but at most <code>maxEvents</code> of them. The events are stored in
+     * an array that is reused by subsequent calls, and are handed out one after
+     * the other by {@link #nextBatchedEvent()}, in the order of the queue.
+     * <p>
+     * Taking out a whole batch at once is cheaper than calling
+     * {@link #getNextEvent()} for every event. The events of the batch that have
+     * not been handed out yet are put back into the queue if events are removed
+     * from the queue in the meantime, e.g. because a node was removed.
+     *
+     * @param maxEvents The maximum number of events to take out of the queue.
+     * @return The number of events in the batch.
+     */
+    public int pollBatch(int maxEvents) {
+        restoreBatch();
+        batchSize = 0;
+        batchNext = 0;
+        Event e = peek();
+        if (e != null) {
+            double time = e.time;
+            while (batchSize < maxEvents && e != null && e.time == time) {
+                storage.poll(); // returns e
+                unregister(e);
+                if (batchSize == batch.length) {
+                    Event[] tmp = new Event[batch.length * 2];
+                    System.arraycopy(batch, 0, tmp, 0, batchSize);
+                    batch = tmp;
+                }
+                batch[batchSize++] = e;
+                e = peek();
+            }
+            eventNumber += batchSize;
+        }
+        notifyListeners();
+        return batchSize;
+    }
+
+    /**
+     * Returns the next event of the batch taken out by {@link #pollBatch(int)}.
+     *
+     * @return The next event of the current batch, null if all events of the batch
+     * have been handed out, or if the remaining events were put back into the
+     * queue.
+     */
+    public Event nextBatchedEvent() {
+        if (batchNext == batchSize) {
             return null;
         }
+        Event e = batch[batchNext];
+        batch[batchNext++] = null;
+        return e;
+    }
+
+    /**
+     * Puts the events of the current batch that have not been handed out back
+     * into the queue.
+     */
+    private void restoreBatch() {
+        if (batchNext == batchSize) {
+            return;
+        }
+        eventNumber -= batchSize - batchNext;
+        for (int i = batchNext; i < batchSize; i++) {
+            storage.add(batch[i]);
+            register(batch[i]);
+            batch[i] = null;
+        }
+        batchSize = batchNext;
     }
 
     /**
@@ -91,10 +213,137 @@ public class EventQueue extends TreeSet<Event> {
      * @param e The event to add to the queue.
      */
     public void insert(Event e) {
-        this.add(e);
+        e.cancelled = false;
+        storage.add(e);
+        register(e);
         notifyListeners();
     }
 
+    /**
+     * @return The next event in the queue without removing it, null if there is
+     * none.
+     */
+    public Event peek() {
+        Event e = storage.peek();
+        while (e != null && e.cancelled) {
+            freeCancelledEvent(storage.poll());
+            e = storage.peek();
+        }
+        return e;
+    }
+
+    /**
+     * @return The number of events in the queue.
+     */
+    public int size() {
+        return storage.size() - numCancelledEvents;
+    }
+
+    /**
+     * @return True if there are no events in the queue, otherwise false.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes the next event from the storage, skipping and freeing cancelled
+     * events.
+     *
+     * @return The next event that was not cancelled, null if there is none.
+     */
+    private Event pollStorage() {
+        Event e = storage.poll();
+        while (e != null && e.cancelled) {
+            freeCancelledEvent(e);
+            e = storage.poll();
+        }
+        return e;
+    }
+
+    /**
+     * Adds an event to the indexes of the nodes and the edge it belongs to, such
+     * that it can be found without searching the entire queue.
+     *
+     * @param e The event that was added to the queue.
+     */
+    private void register(Event e) {
+        Node n = e.isNodeEvent() ? e.getEventNode() : null;
+        if (n != null) {
+            n.getQueuedEvents().append(e);
+        }
+        if (e instanceof PacketEvent) {
+            PacketEvent pe = (PacketEvent) e;
+            if (pe.packet.origin != null && pe.packet.origin != n) {
+                pe.packet.origin.getQueuedEvents().append(e);
+            }
+            if (pe.packet.edge != null) {
+                pe.packet.edge.getPacketEvents().append(pe);
+            }
+        }
+    }
+
+    /**
+     * Removes an event from the indexes it was added to by
+     * {@link #register(Event)}.
+     *
+     * @param e The event that is removed from the queue.
+     */
+    private void unregister(Event e) {
+        Node n = e.isNodeEvent() ? e.getEventNode() : null;
+        if (n != null) {
+            n.getQueuedEvents().remove(e);
+        }
+        if (e instanceof PacketEvent) {
+            PacketEvent pe = (PacketEvent) e;
+            if (pe.packet.origin != null && pe.packet.origin != n) {
+                pe.packet.origin.getQueuedEvents().remove(e);
+            }
+            if (pe.packet.edge != null) {
+                pe.packet.edge.getPacketEvents().remove(pe);
+            }
+        }
+    }
+
+    /**
+     * Marks an event as cancelled. The event remains in the storage until it is
+     * reached by getNextEvent() or until the storage is cleaned up, but is not
+     * visible anymore.
+     *
+     * @param e The event to cancel.
+     */
+    private void cancel(Event e) {
+        unregister(e);
+        e.cancelled = true;
+        numCancelledEvents++;
+    }
+
+    private void freeCancelledEvent(Event e) {
+        e.cancelled = false;
+        numCancelledEvents--;
+        e.free(); // free the event (and also the packet, if it's a packet event)
+    }
+
+    /**
+     * Removes the cancelled events from the storage if they make up more than half
+     * of the stored events.
+     */
+    private void removeCancelledEvents() {
+        if (numCancelledEvents > 32 && 2 * numCancelledEvents > storage.size()) {
+            storage.removeIf(e -> {
+                if (e.cancelled) {
+                    removedEvents.add(e);
+                    return true;
+                }
+                return false;
+            });
+            for (Event e : removedEvents) {
+                freeCancelledEvent(e);
+            }
+            removedEvents.clear();
+        }
+    }
+
     /**
      * Removes all the Events for this node. This method is used when a node is
      * removed from the system, all events in the system that are in the queue have
@@ -105,26 +354,23 @@ public class EventQueue extends TreeSet<Event> {
      * @param n The node for which all events are deleted
      */
     public void removeAllEventsForThisNode(Node n) {
+        restoreBatch();
         boolean changed = false;
 
-        Iterator<Event> eventIter = iterator();
-        while (eventIter.hasNext()) {
-            Event e = eventIter.next();
+        // only visit the events related to this node
+        DoublyLinkedList<Event> events = n.getQueuedEvents();
+        while (!events.isEmpty()) {
+            Event e = events.pop();
             if (e.isNodeEvent() && n.equals(e.getEventNode())) {
                 // an event that would execute on this node
-                eventIter.remove();
-                e.free(); // free the event (and also the packet, if it's a packet event)
+                cancel(e); // the event is freed when it is removed from the storage
                 changed = true;
-            } else {
-                // test whether it's a msg event sent by this node, then invalidate
-                if (e instanceof PacketEvent) {
-                    PacketEvent pe = (PacketEvent) e;
-                    if (pe.packet.origin.equals(n)) {
-                        pe.packet.denyDelivery();
-                    }
-                }
+            } else if (e instanceof PacketEvent) {
+                // a msg event sent by this node, invalidate it
+                ((PacketEvent) e).packet.denyDelivery();
             }
         }
+        removeCancelledEvents();
 
         if (changed) {
             notifyListeners();
@@ -139,17 +385,16 @@ public class EventQueue extends TreeSet<Event> {
      * @param toDelFor The edge to remove all the events for.
      */
     public void invalidatePacketEventsForThisEdge(Edge toDelFor) {
+        restoreBatch();
         boolean changed = false;
 
-        for (Event eventInQueue : this) {
-            if (eventInQueue instanceof PacketEvent) {
-                PacketEvent pe = (PacketEvent) eventInQueue;
-                if (pe.packet.edge != null && toDelFor.getID() == pe.packet.edge.getID()) {
-                    pe.packet.positiveDelivery = false;
-                    pe.packet.edge = null; // the edge may not exist anymore
-                    changed = true;
-                }
-            }
+        // only visit the events sent over this edge
+        DoublyLinkedList<PacketEvent> events = toDelFor.getPacketEvents();
+        while (!events.isEmpty()) {
+            PacketEvent pe = events.pop();
+            pe.packet.positiveDelivery = false;
+            pe.packet.edge = null; // the edge may not exist anymore
+            changed = true;
         }
 
         if (changed) {
@@ -161,18 +406,23 @@ public class EventQueue extends TreeSet<Event> {
      * Removes all events related with a node (packet events and node-timer events).
      */
     public void pruneAllNodeEvents() {
-        EventQueue eq = new EventQueue();
-        eq.listeners = this.listeners; // inherit the listeners
-
-        for (Event e : this) {
+        restoreBatch();
+        storage.removeIf(e -> {
             if (e.isNodeEvent()) {
-                e.free(); // also frees a corresponding packet event, inclusive the packet
+                removedEvents.add(e);
+                return true;
+            }
+            return false;
+        });
+        for (Event e : removedEvents) {
+            if (e.cancelled) {
+                freeCancelledEvent(e);
             } else {
-                eq.add(e);
+                unregister(e);
+                e.free(); // also frees a corresponding packet event, inclusive the packet
             }
         }
-        super.clear(); // kill this set
-        SinalgoRuntime.eventQueue = eq; // replace the event queue
+        removedEvents.clear();
         notifyListeners();
     }
 
@@ -180,11 +430,21 @@ public class EventQueue extends TreeSet<Event> {
      * Removes all events without executing them
      */
     public void dropAllEvents() {
-        for (Event e : this) {
-            e.drop();
-            e.free(); // free the event resources
+        restoreBatch();
+        for (Event e : storage) {
+            removedEvents.add(e);
+        }
+        storage.clear(); // remove all events
+        for (Event e : removedEvents) {
+            if (e.cancelled) {
+                freeCancelledEvent(e);
+            } else {
+                unregister(e);
+                e.drop();
+                e.free(); // free the event resources
+            }
         }
-        super.clear(); // remove all events
+        removedEvents.clear();
         notifyListeners();
     }
 
@@ -194,7 +454,9 @@ public class EventQueue extends TreeSet<Event> {
      * @param e The event to remove
      */
     public void dropEvent(Event e) {
-        if (this.remove(e)) {
+        restoreBatch();
+        if (!e.cancelled && storage.remove(e)) {
+            unregister(e);
             e.drop();
             e.free();
         }
@@ -205,8 +467,38 @@ public class EventQueue extends TreeSet<Event> {
      * Triggers an notification to all the registered listeners. Normally this is
      * used internally only, but there are some special cases, where the eventQueue
      * and the queue does not notify it (interference)
+     * <p>
+     * While the simulation is running, the notifications are coalesced such that
+     * the listeners are notified at most once every
+     * <code>eventQueueNotificationInterval</code> milliseconds.
      */
     public void notifyListeners() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (Configuration.eventQueueNotificationInterval > 0 && Global.isRunning) {
+            notificationPending = true;
+            if (System.currentTimeMillis() - lastNotificationTime < Configuration.eventQueueNotificationInterval) {
+                return;
+            }
+        }
+        notifyListenersNow();
+    }
+
+    /**
+     * Notifies the listeners if there is a notification that was held back by
+     * {@link #notifyListeners()}. Called by the runtime whenever the GUI is
+     * refreshed and at the end of a run.
+     */
+    public void flushNotifications() {
+        if (notificationPending) {
+            notifyListenersNow();
+        }
+    }
+
+    private void notifyListenersNow() {
+        notificationPending = false;
+        lastNotificationTime = System.currentTimeMillis();
         for (int i = 0; i < listeners.size(); i++) {
             listeners.elementAt(i).eventQueueChanged();
         }
@@ -230,42 +522,52 @@ public class EventQueue extends TreeSet<Event> {
         listeners.remove(eqList);
     }
 
-    @Override
-    public Iterator<Event> iterator() {
-        return new EventIter(super.iterator());
-    }
-
     /**
-     * Forwards all the calls to the internal iterator. All it changes compared to
-     * the standard iterator is, that it frees the event when removing it.
+     * Returns an iterator over the events in the order they will be executed. The
+     * queue must not be modified while iterating.
+     *
+     * @return An iterator over the events of this queue.
      */
-    private class EventIter implements Iterator<Event> {
-
-        private Iterator<Event> iter;
-        private Event current;
-
-        private EventIter(Iterator<Event> iter) {
-            this.iter = iter;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return iter.hasNext();
-        }
+    @Override
+    public Iterator<Event> iterator() {
+        Iterator<Event> sorted = storage.sortedIterator();
+        return new Iterator<Event>() {
+            private Event next = advance();
+
+            // skips the cancelled events
+            private Event advance() {
+                while (sorted.hasNext()) {
+                    Event e = sorted.next();
+                    if (!e.cancelled) {
+                        return e;
+                    }
+                }
+                return null;
+            }
 
-        @Override
-        public Event next() {
-            current = iter.next();
-            return current;
-        }
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
 
-        @Override
-        public void remove() {
-            iter.remove();
-        }
+            @Override
+            public Event next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Event e = next;
+                next = advance();
+                return e;
+            }
+        };
     }
 
-    private static class EventComparator implements Comparator<Event> {
+    /**
+     * The ordering of the events: The events are sorted by the time when they
+     * execute. If two events execute at the same time, the event that was created
+     * earlier is executed first.
+     */
+    static class EventComparator implements Comparator<Event> {
 
         @Override
         public int compare(Event arg0, Event arg1) {
@@ -0,0 +1,117 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * The data structure that holds the events of the {@link EventQueue}. The
+ * implementation to use is specified by the <code>eventQueueStorage</code>
+ * field in the configuration file.
+ * <p>
+ * Implementations must order the events according to their execution time. If
+ * two events have the same execution time, the event that was created earlier
+ * (the event with the smaller id) comes first. Implementations need to provide
+ * a public constructor without arguments.
+ */
+public interface EventStorage extends Iterable<Event> {
+
+    /**
+     * Adds an event to this storage.
+     *
+     * @param e The event to add.
+     */
+    void add(Event e);
+
+    /**
+     * @return The next event to execute, without removing it from this storage.
+     * null if this storage is empty.
+     */
+    Event peek();
+
+    /**
+     * Removes the next event to execute from this storage.
+     *
+     * @return The removed event, null if this storage is empty.
+     */
+    Event poll();
+
+    /**
+     * Removes a given event from this storage.
+     *
+     * @param e The event to remove.
+     * @return True if the event was contained in this storage, otherwise false.
+     */
+    boolean remove(Event e);
+
+    /**
+     * Removes all events that satisfy the given filter.
+     *
+     * @param filter The filter that returns true for the events to remove.
+     * @return True if at least one event was removed, otherwise false.
+     */
+    boolean removeIf(Predicate<? super Event> filter);
+
+    /**
+     * Removes all events from this storage.
+     */
+    void clear();
+
+    /**
+     * @return The number of events in this storage.
+     */
+    int size();
+
+    /**
+     * Returns an iterator over all events of this storage in no particular order.
+     * The storage must not be modified while iterating.
+     *
+     * @return An iterator over all events of this storage.
+     */
+    @Override
+    Iterator<Event> iterator();
+
+    /**
+     * Returns an iterator over all events of this storage in the order they are
+     * going to be executed. The storage must not be modified while iterating.
+     *
+     * @return An iterator over all events of this storage, sorted by their execution
+     * time.
+     */
+    Iterator<Event> sortedIterator();
+}
@@ -0,0 +1,281 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+import sinalgo.exception.SinalgoFatalException;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * An event storage that keeps the events in an array based 4-ary heap.
+ * <p>
+ * The next event is available in constant time, adding and removing an event
+ * takes O(log n) time. As the events store their position in the heap,
+ * arbitrary events can be removed in O(log n) time as well. Apart from growing
+ * the array, no objects are allocated when events are added.
+ */
+public class HeapEventStorage implements EventStorage {
+
+    private static final int ARITY = 4;
+
+    private Event[] heap = new Event[64];
+    private int size = 0;
+
+    @Override
+    public void add(Event e) {
+        if (e.queueIndex >= 0) {
+            throw new SinalgoFatalException("An event was added twice to the event queue.");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * size);
+        }
+        siftUp(heap, size, e, true);
+        size++;
+    }
+
+    @Override
+    public Event peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        Event first = heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    @Override
+    public boolean remove(Event e) {
+        int i = e.queueIndex;
+        if (i < 0 || i >= size || heap[i] != e) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Event> filter) {
+        // compact the array and restore the heap property afterwards, which is
+        // cheaper than removing the events one by one.
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            Event e = heap[i];
+            if (filter.test(e)) {
+                e.queueIndex = -1;
+            } else {
+                e.queueIndex = newSize;
+                heap[newSize++] = e;
+            }
+        }
+        if (newSize == size) {
+            return false;
+        }
+        Arrays.fill(heap, newSize, size, null);
+        size = newSize;
+        for (int i = (size - 2) / ARITY; i >= 0; i--) {
+            siftDown(heap, size, i, heap[i], true);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].queueIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Event next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return heap[next++];
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Event> sortedIterator() {
+        // removes the events one after the other from a copy of the heap, such that
+        // only the events actually visited need to be sorted.
+        return new Iterator<Event>() {
+            private Event[] copy = Arrays.copyOf(heap, size);
+            private int copySize = size;
+
+            @Override
+            public boolean hasNext() {
+                return copySize > 0;
+            }
+
+            @Override
+            public Event next() {
+                if (copySize == 0) {
+                    throw new NoSuchElementException();
+                }
+                Event first = copy[0];
+                copySize--;
+                if (copySize > 0) {
+                    siftDown(copy, copySize, 0, copy[copySize], false);
+                }
+                copy[copySize] = null;
+                return first;
+            }
+        };
+    }
+
+    /**
+     * Removes the event at the given position of the heap.
+     *
+     * @param i The position of the event to remove.
+     */
+    private void removeAt(int i) {
+        heap[i].queueIndex = -1;
+        size--;
+        if (i != size) {
+            Event last = heap[size];
+            heap[size] = null;
+            siftDown(heap, size, i, last, true);
+            if (heap[i] == last) {
+                siftUp(heap, i, last, true);
+            }
+        } else {
+            heap[size] = null;
+        }
+    }
+
+    /**
+     * @return True if event a executes before event b. Corresponds to the ordering
+     * of the {@link EventQueue.EventComparator}.
+     */
+    private static boolean isBefore(Event a, Event b) {
+        return a.time < b.time || (a.time == b.time && a.id < b.id);
+    }
+
+    /**
+     * Moves an event from the given position towards the root of the heap until
+     * its parent executes before the event.
+     *
+     * @param h          The heap array.
+     * @param i          The position the event is placed at.
+     * @param e          The event to place.
+     * @param trackIndex Whether to update the queueIndex field of the moved events.
+     */
+    private static void siftUp(Event[] h, int i, Event e, boolean trackIndex) {
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            Event p = h[parent];
+            if (!isBefore(e, p)) {
+                break;
+            }
+            h[i] = p;
+            if (trackIndex) {
+                p.queueIndex = i;
+            }
+            i = parent;
+        }
+        h[i] = e;
+        if (trackIndex) {
+            e.queueIndex = i;
+        }
+    }
+
+    /**
+     * Moves an event from the given position towards the leaves of the heap until
+     * all its children execute after the event.
+     *
+     * @param h          The heap array.
+     * @param size       The number of events in the heap.
+     * @param i          The position the event is placed at.
+     * @param e          The event to place.
+     * @param trackIndex Whether to update the queueIndex field of the moved events.
+     */
+    private static void siftDown(Event[] h, int size, int i, Event e, boolean trackIndex) {
+        while (true) {
+            int firstChild = ARITY * i + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            // find the child that executes first
+            int min = firstChild;
+            int end = Math.min(firstChild + ARITY, size);
+            for (int c = firstChild + 1; c < end; c++) {
+                if (isBefore(h[c], h[min])) {
+                    min = c;
+                }
+            }
+            Event m = h[min];
+            if (!isBefore(m, e)) {
+                break;
+            }
+            h[i] = m;
+            if (trackIndex) {
+                m.queueIndex = i;
+            }
+            i = min;
+        }
+        h[i] = e;
+        if (trackIndex) {
+            e.queueIndex = i;
+        }
+    }
+}
@@ -44,6 +44,7 @@ import sinalgo.nodes.messages.NackBox;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.nodes.messages.Packet.PacketType;
 import sinalgo.runtime.Global;
+import sinalgo.runtime.ParallelEventExecutor;
 import sinalgo.runtime.SinalgoRuntime;
 import sinalgo.tools.logging.Logging;
 
@@ -123,9 +124,9 @@ public class PacketEvent extends Event {
         numPacketEventsOnTheFly--;
     }
 
-    // Two static objects to prevent from allocating them all over again
-    private static Inbox inbox = new Inbox();
-    private static NackBox nAckBox = new NackBox();
+    // Two objects per thread to prevent from allocating them all over again
+    private static final ThreadLocal<Inbox> inbox = ThreadLocal.withInitial(Inbox::new);
+    private static final ThreadLocal<NackBox> nAckBox = ThreadLocal.withInitial(NackBox::new);
 
     @Override
     public void handle() {
@@ -135,13 +136,20 @@ public class PacketEvent extends Event {
             SinalgoRuntime.packetsInTheAir.remove(packet);
         }
         if (packet.edge != null) {
-            packet.edge.removeMessageForThisEdge(packet.message);
+            if (ParallelEventExecutor.isParallelPhase()) {
+                // the packets sent over the edge are handled on both of its nodes
+                synchronized (packet.edge) {
+                    packet.edge.removeMessageForThisEdge(packet.message);
+                }
+            } else {
+                packet.edge.removeMessageForThisEdge(packet.message);
+            }
         }
         if (packet.positiveDelivery) {
-            packet.destination.handleMessages(inbox.resetForPacket(packet));
+            packet.destination.handleMessages(inbox.get().resetForPacket(packet));
         } else {
             if (Configuration.generateNAckMessages && packet.type == PacketType.UNICAST) {
-                packet.origin.handleNAckMessages(nAckBox.resetForPacket(packet));
+                packet.origin.handleNAckMessages(nAckBox.get().resetForPacket(packet));
             }
         }
     }
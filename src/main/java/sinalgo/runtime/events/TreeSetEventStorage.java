@@ -0,0 +1,95 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * An event storage that keeps the events in a red-black tree.
+ */
+public class TreeSetEventStorage implements EventStorage {
+
+    private TreeSet<Event> events = new TreeSet<>(new EventQueue.EventComparator());
+
+    @Override
+    public void add(Event e) {
+        events.add(e);
+    }
+
+    @Override
+    public Event peek() {
+        return events.isEmpty() ? null : events.first();
+    }
+
+    @Override
+    public Event poll() {
+        return events.pollFirst();
+    }
+
+    @Override
+    public boolean remove(Event e) {
+        return events.remove(e);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Event> filter) {
+        return events.removeIf(filter);
+    }
+
+    @Override
+    public void clear() {
+        events.clear();
+    }
+
+    @Override
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public Iterator<Event> iterator() {
+        return Collections.unmodifiableSet(events).iterator();
+    }
+
+    @Override
+    public Iterator<Event> sortedIterator() {
+        return iterator(); // the events are sorted anyways
+    }
+}
@@ -71,6 +71,18 @@ public class DLLNodeList extends DoublyLinkedList<Node> implements NodeListInter
         return theIteratorInstance;
     }
 
+    /**
+     * Returns a new iterator over this list. In contrast to {@link #iterator()},
+     * which always returns the same iterator instance, the iterators returned by
+     * this method may be used by several threads concurrently, as long as none of
+     * them modifies the list.
+     *
+     * @return A new iterator over this list.
+     */
+    public ReusableListIterator<Node> newIterator() {
+        return super.iterator();
+    }
+
     @Override
     public boolean removeNode(Node nw) {
         return this.remove(nw);
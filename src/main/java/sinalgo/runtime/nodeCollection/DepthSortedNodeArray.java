@@ -0,0 +1,171 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.gui.transformation.PositionTransformation;
+import sinalgo.gui.transformation.Transformation3D;
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Main;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+
+/**
+ * The nodes of a 3D node collection, sorted such that the nodes in the back are
+ * drawn first. This array implements the getSortedNodeEnumeration method of
+ * the 3D node collections.
+ */
+class DepthSortedNodeArray {
+
+    private Node[] sortedNodeArray = new Node[1];
+    private int sortedNodeArraySize = 0; // Number of non-null nodes in sortedNodeArray
+    private DepthComparator myDepthComparator = null;
+
+    private int lastVersionNumber = 0;
+    private boolean changed = false;
+
+    /**
+     * Indicates that a node has been added or removed, such that the nodes need
+     * to be sorted again.
+     */
+    void setChanged() {
+        changed = true;
+    }
+
+    /**
+     * Returns an enumeration over the given nodes, sorted by their distance to the
+     * viewer if <code>draw3DGraphNodesInProperOrder</code> is set.
+     *
+     * @param nodes       All nodes of the node collection.
+     * @param backToFront set true to get the nodes in back first, false to get nodes in
+     *                    front first.
+     * @return An enumeration over the sorted nodes.
+     * @see NodeCollectionInterface#getSortedNodeEnumeration(boolean)
+     */
+    Enumeration<Node> getSortedNodeEnumeration(OrderStatisticNodeList nodes, boolean backToFront) {
+        if (!Configuration.draw3DGraphNodesInProperOrder) {
+            return nodes.elements();
+        }
+        PositionTransformation t3d = Main.getRuntime().getTransformator();
+        int actualVersionNumber = t3d.getVersionNumber();
+        if ((lastVersionNumber != actualVersionNumber) || (changed)) {
+            // the transformation has changed. Need to resort the array.
+            lastVersionNumber = actualVersionNumber;
+            changed = false;
+
+            sortedNodeArray = nodes.toArray(sortedNodeArray);
+            sortedNodeArraySize = nodes.size();
+            if (sortedNodeArraySize > 1) {
+                if (myDepthComparator == null) {
+                    myDepthComparator = new DepthComparator();
+                }
+                Arrays.sort(sortedNodeArray, 0, sortedNodeArraySize, myDepthComparator);
+            }
+        }
+
+        return new ArrayEnumeration(backToFront);
+    }
+
+    // An enumeration over the array of sorted nodes.
+    private class ArrayEnumeration implements Enumeration<Node> {
+
+        boolean backToFront;
+
+        /**
+         * Constructs an arrayEnumeration with the given modal.
+         *
+         * @param backToFront Indicates whether the array has to be sorted forward or backward.
+         *                    Set to true to sort it so that the element with the biggest
+         *                    distance to the viewer has is traversed first.
+         */
+        private ArrayEnumeration(boolean backToFront) {
+            this.backToFront = backToFront;
+        }
+
+        int currentIndex = 0;
+
+        @Override
+        public boolean hasMoreElements() {
+            return currentIndex < sortedNodeArraySize;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (backToFront) {
+                return sortedNodeArray[currentIndex++]; // implicit incrementation
+            } else {
+                return sortedNodeArray[sortedNodeArraySize - ++currentIndex]; // implicit incrementation BEFORE
+                // evaulation to have the offset one
+                // smaller
+            }
+        }
+    }
+
+    /**
+     * Sorts the elements such that nodes in the back are drawn first
+     */
+    private class DepthComparator implements Comparator<Node> {
+
+        PositionTransformation pt = null;
+        Transformation3D t3d = null;
+
+        /**
+         * Creates a new DepthComparator instance. Note that the DepthComparator only
+         * does something in 3 Dimensions.
+         */
+        private DepthComparator() {
+            pt = Main.getRuntime().getTransformator();
+            if (pt instanceof Transformation3D) {
+                t3d = (Transformation3D) pt;
+            }
+        }
+
+        @Override
+        public int compare(Node n1, Node n2) {
+            if (t3d != null) {
+                double zN1 = t3d.translateToGUIPositionAndGetZOffset(n1.getPosition());
+                double zN2 = t3d.translateToGUIPositionAndGetZOffset(n2.getPosition());
+                return (int) (zN1 - zN2);
+            } else {
+                // The deptcompator is not used in 2 dimensions.
+                return 0;
+            }
+        }
+    }
+}
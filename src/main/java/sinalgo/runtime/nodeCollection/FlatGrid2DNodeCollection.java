@@ -0,0 +1,223 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A node collection for 2D that stores the nodes in a grid of squares with side
+ * length rMax, like the {@link Geometric2DNodeCollection}, but keeps the grid in
+ * flat arrays instead of a linked list per square (see {@link FlatSquareGrid}).
+ * Thus, the possible neighbors of a node are found by traversing three
+ * consecutive ranges of an int array, and a round in which many nodes move
+ * costs a single counting sort of all nodes.
+ * <p>
+ * Use {@link #forEachPossibleNeighbor(Node, Consumer)} to traverse the possible
+ * neighbors of a node without an enumeration object.
+ * <p>
+ * To use this collection, set the <code>nodeCollection2D</code> entry of the
+ * configuration file to
+ * <code>sinalgo.runtime.nodeCollection.FlatGrid2DNodeCollection</code>.
+ */
+public class FlatGrid2DNodeCollection extends NodeCollectionInterface {
+
+    // the nodes in the order they were added, to traverse the nodes
+    private OrderStatisticNodeList localNodes = new OrderStatisticNodeList();
+
+    // the grid of squares with side length rMax
+    private FlatSquareGrid grid;
+
+    // one enumeration per thread, as the connections of the nodes may be updated
+    // in parallel
+    private final ThreadLocal<NeighborEnumeration> neighborEnumeration = new ThreadLocal<>();
+
+    /**
+     * The constructor for the FlatGrid2DNodeCollection class.
+     */
+    public FlatGrid2DNodeCollection() {
+        // Immediately stop execution if rMax is not defined in the xml config file.
+        double rMax;
+        try {
+            rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException(e.getMessage());
+        }
+        grid = new FlatSquareGrid(rMax, Configuration.dimX, Configuration.dimY);
+    }
+
+    /**
+     * The slot of a node in the grid.
+     */
+    private static class Slot implements NodeCollectionInfoInterface {
+
+        private int index;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+    }
+
+    @Override
+    protected void _addNode(Node n) {
+        n.holdInNodeCollection = true;
+        n.nodeCollectionInfo = new Slot(grid.add(n));
+        localNodes.addNode(n);
+    }
+
+    @Override
+    protected void _removeNode(Node n) {
+        n.holdInNodeCollection = false;
+        grid.remove(getSlotOfNode(n));
+        localNodes.removeNode(n);
+    }
+
+    @Override
+    protected void _updateNodeCollection(Node n) {
+        if (!n.holdInNodeCollection) {
+            return; // the node is not yet hold by this node collection
+        }
+        grid.update(getSlotOfNode(n));
+    }
+
+    private int getSlotOfNode(Node n) {
+        if (n.nodeCollectionInfo instanceof Slot) {
+            int s = ((Slot) n.nodeCollectionInfo).index;
+            if (grid.getNode(s) == n) {
+                return s;
+            }
+        }
+        throw new SinalgoFatalException("FlatGrid2DNodeCollection:\n"
+                + "A node is being accessed which is not contained in this node collection.");
+    }
+
+    @Override
+    public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+        grid.prepareQuery();
+        NeighborEnumeration enumeration = neighborEnumeration.get();
+        if (enumeration == null) {
+            enumeration = new NeighborEnumeration();
+            neighborEnumeration.set(enumeration);
+        }
+        enumeration.resetForNode(n);
+        return enumeration;
+    }
+
+    @Override
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        grid.prepareQuery();
+        Position p = n.getPosition();
+        int x = grid.getColumn(p.xCoord);
+        int y = grid.getRow(p.yCoord);
+        grid.forEachNode(Math.max(x - 1, 0), Math.min(x + 1, grid.getColumns() - 1),
+                Math.max(y - 1, 0), Math.min(y + 1, grid.getRows() - 1), action);
+    }
+
+    /**
+     * Enumeration over the possible neighbors of a node, i.e. the nodes in the 3x3
+     * squares around the node.
+     */
+    private class NeighborEnumeration implements Enumeration<Node> {
+
+        private final FlatSquareGrid.Cursor cursor = grid.new Cursor();
+        private Node next;
+
+        /**
+         * Resets this enumeration to traverse the possible neighbors of the given
+         * node.
+         *
+         * @param n The node to get the neighbor candidates for.
+         */
+        private void resetForNode(Node n) {
+            Position p = n.getPosition();
+            int x = grid.getColumn(p.xCoord);
+            int y = grid.getRow(p.yCoord);
+            cursor.reset(Math.max(x - 1, 0), Math.min(x + 1, grid.getColumns() - 1),
+                    Math.max(y - 1, 0), Math.min(y + 1, grid.getRows() - 1));
+            next = cursor.next();
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next != null;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node n = next;
+            next = cursor.next();
+            return n;
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+        // in 2D returns the same as getNodeEnumeration()
+        return localNodes.elements();
+    }
+
+    @Override
+    public Enumeration<Node> getNodeEnumeration() {
+        return localNodes.elements();
+    }
+
+    @Override
+    protected Iterator<Node> _iterator() {
+        return localNodes.iterator();
+    }
+
+    @Override
+    public Node getRandomNode() {
+        return super.defaultGetRandomNode(localNodes);
+    }
+
+    @Override
+    public int size() {
+        return localNodes.size();
+    }
+}
@@ -0,0 +1,406 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A grid of squares that stores nodes in flat arrays, used by the
+ * {@link FlatGrid2DNodeCollection} and the {@link Hierarchical2DNodeCollection}.
+ * <p>
+ * Each node occupies a slot, and the grid consists of the slots sorted by their
+ * square (with a counting sort), together with the offset of each square in
+ * this array. Thus, the nodes in a rectangle of squares are found by traversing
+ * one consecutive range of an int array per row. When a node is added, removed
+ * or moves to another square, its slot is marked as pending instead of sorting
+ * the nodes again: The grid ignores the pending slots, which are tested
+ * separately by each query. Once there are more than a few pending slots, the
+ * grid is rebuilt upon the next query. Therefore, a round in which many nodes
+ * move costs a single rebuild, which is linear in the number of nodes.
+ */
+class FlatSquareGrid {
+
+    // the number of pending slots that are tested by each query before the grid
+    // is rebuilt
+    private static final int MAX_PENDING = 64;
+
+    // the side length of the squares
+    private final double squareSize;
+
+    // the number of squares needed to cover the playground
+    private final int xDim;
+    private final int yDim;
+
+    // the node in each slot, null if the slot is free
+    private Node[] slotNodes = new Node[16];
+    // the square of each slot, -1 if the slot is free
+    private int[] slotSquares = new int[16];
+    // whether a slot changed since the grid was last built
+    private boolean[] slotPending = new boolean[16];
+    // the number of slots used so far
+    private int numSlots = 0;
+    // the number of nodes in this grid
+    private int numNodes = 0;
+
+    private int[] freeSlots = new int[16];
+    private int numFreeSlots = 0;
+
+    // the slots that changed since the grid was last built
+    private int[] pending = new int[16];
+    // volatile, as the grid may be rebuilt by the first of several threads that
+    // enumerate neighbors in parallel
+    private volatile int numPending = 0;
+
+    // the grid: the slots in square s are gridSlots[squareStart[s]] to
+    // gridSlots[squareStart[s + 1] - 1]
+    private final int[] squareStart;
+    private final int[] squareFill;
+    private int[] gridSlots = new int[16];
+
+    /**
+     * Creates a new, empty grid that covers the given area.
+     *
+     * @param squareSize The side length of the squares.
+     * @param dimX       The width of the area.
+     * @param dimY       The height of the area.
+     */
+    FlatSquareGrid(double squareSize, double dimX, double dimY) {
+        this.squareSize = squareSize;
+        xDim = Math.max(1, (int) Math.ceil(dimX / squareSize));
+        yDim = Math.max(1, (int) Math.ceil(dimY / squareSize));
+        squareStart = new int[xDim * yDim + 1];
+        squareFill = new int[xDim * yDim];
+    }
+
+    /**
+     * @return The side length of the squares.
+     */
+    double getSquareSize() {
+        return squareSize;
+    }
+
+    /**
+     * @return The number of columns of squares.
+     */
+    int getColumns() {
+        return xDim;
+    }
+
+    /**
+     * @return The number of rows of squares.
+     */
+    int getRows() {
+        return yDim;
+    }
+
+    /**
+     * @return The number of nodes in this grid.
+     */
+    int size() {
+        return numNodes;
+    }
+
+    /**
+     * @param coord An x coordinate.
+     * @return The column of squares that contains the given coordinate, clamped
+     * to the grid.
+     */
+    int getColumn(double coord) {
+        return Math.max(0, Math.min(xDim - 1, (int) Math.floor(coord / squareSize)));
+    }
+
+    /**
+     * @param coord A y coordinate.
+     * @return The row of squares that contains the given coordinate, clamped to
+     * the grid.
+     */
+    int getRow(double coord) {
+        return Math.max(0, Math.min(yDim - 1, (int) Math.floor(coord / squareSize)));
+    }
+
+    private int getSquareOfNode(Node n) {
+        Position p = n.getPosition();
+        return getRow(p.yCoord) * xDim + getColumn(p.xCoord);
+    }
+
+    /**
+     * Adds a node to this grid.
+     *
+     * @param n The node to add.
+     * @return The slot of the node.
+     */
+    int add(Node n) {
+        int s;
+        if (numFreeSlots > 0) {
+            s = freeSlots[--numFreeSlots];
+        } else {
+            if (numSlots == slotNodes.length) {
+                int length = 2 * numSlots;
+                slotNodes = Arrays.copyOf(slotNodes, length);
+                slotSquares = Arrays.copyOf(slotSquares, length);
+                slotPending = Arrays.copyOf(slotPending, length);
+            }
+            s = numSlots++;
+        }
+        slotNodes[s] = n;
+        slotSquares[s] = getSquareOfNode(n);
+        markPending(s);
+        numNodes++;
+        return s;
+    }
+
+    /**
+     * Removes the node in the given slot from this grid.
+     *
+     * @param s The slot of the node.
+     */
+    void remove(int s) {
+        slotNodes[s] = null;
+        slotSquares[s] = -1;
+        markPending(s);
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, 2 * numFreeSlots);
+        }
+        freeSlots[numFreeSlots++] = s;
+        numNodes--;
+    }
+
+    /**
+     * Moves the node in the given slot to the square of its current position.
+     *
+     * @param s The slot of the node.
+     */
+    void update(int s) {
+        int square = getSquareOfNode(slotNodes[s]);
+        if (slotSquares[s] != square) {
+            slotSquares[s] = square;
+            markPending(s);
+        }
+    }
+
+    /**
+     * @param s A slot.
+     * @return The node in the given slot, null if the slot is free or does not
+     * exist.
+     */
+    Node getNode(int s) {
+        return s >= 0 && s < numSlots ? slotNodes[s] : null;
+    }
+
+    private void markPending(int s) {
+        if (!slotPending[s]) {
+            slotPending[s] = true;
+            if (numPending == pending.length) {
+                pending = Arrays.copyOf(pending, 2 * numPending);
+            }
+            pending[numPending] = s;
+            numPending = numPending + 1;
+        }
+    }
+
+    /**
+     * Rebuilds the grid if too many slots changed since the grid was last built.
+     * This method needs to be called before the nodes of the grid are traversed.
+     */
+    void prepareQuery() {
+        if (numPending > MAX_PENDING) {
+            synchronized (this) {
+                if (numPending > MAX_PENDING) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts all slots by their square with a counting sort.
+     */
+    private void rebuild() {
+        int numSquares = squareFill.length;
+        Arrays.fill(squareStart, 0);
+        for (int s = 0; s < numSlots; s++) {
+            if (slotNodes[s] != null) {
+                squareStart[slotSquares[s] + 1]++;
+            }
+        }
+        for (int q = 0; q < numSquares; q++) {
+            squareStart[q + 1] += squareStart[q];
+        }
+        System.arraycopy(squareStart, 0, squareFill, 0, numSquares);
+        if (gridSlots.length < numNodes) {
+            gridSlots = new int[Math.max(numNodes, 2 * gridSlots.length)];
+        }
+        for (int s = 0; s < numSlots; s++) {
+            if (slotNodes[s] != null) {
+                gridSlots[squareFill[slotSquares[s]]++] = s;
+            }
+        }
+        for (int i = 0; i < numPending; i++) {
+            slotPending[pending[i]] = false;
+        }
+        numPending = 0;
+    }
+
+    private boolean isInRange(int square, int minX, int maxX, int minY, int maxY) {
+        int x = square % xDim;
+        int y = square / xDim;
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * @return True if it is cheaper to test all slots than to traverse the given
+     * rectangle of squares.
+     */
+    private boolean isScanCheaper(int minX, int maxX, int minY, int maxY) {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) > numSlots;
+    }
+
+    /**
+     * Performs the given action for each node in the given rectangle of squares.
+     * {@link #prepareQuery()} needs to be called before.
+     *
+     * @param minX   The first column of the rectangle.
+     * @param maxX   The last column of the rectangle.
+     * @param minY   The first row of the rectangle.
+     * @param maxY   The last row of the rectangle.
+     * @param action The action to perform for each node.
+     */
+    void forEachNode(int minX, int maxX, int minY, int maxY, Consumer<? super Node> action) {
+        if (isScanCheaper(minX, maxX, minY, maxY)) {
+            for (int s = 0; s < numSlots; s++) {
+                if (slotNodes[s] != null && isInRange(slotSquares[s], minX, maxX, minY, maxY)) {
+                    action.accept(slotNodes[s]);
+                }
+            }
+            return;
+        }
+        for (int j = minY; j <= maxY; j++) {
+            for (int i = squareStart[j * xDim + minX], end = squareStart[j * xDim + maxX + 1]; i < end; i++) {
+                int s = gridSlots[i];
+                if (!slotPending[s]) {
+                    action.accept(slotNodes[s]);
+                }
+            }
+        }
+        for (int i = 0, num = numPending; i < num; i++) {
+            int s = pending[i];
+            if (slotNodes[s] != null && isInRange(slotSquares[s], minX, maxX, minY, maxY)) {
+                action.accept(slotNodes[s]);
+            }
+        }
+    }
+
+    /**
+     * An iterator over the nodes in a rectangle of squares, which can be reset
+     * to traverse another rectangle. {@link #prepareQuery()} needs to be called
+     * before.
+     */
+    class Cursor {
+
+        private int minX, maxX, minY, maxY;
+        private boolean scan; // whether all slots are tested
+        private int y; // the current row
+        private int index, end; // the range of the current row in gridSlots
+        private int pendingIndex, numPendingSlots;
+
+        /**
+         * Resets this cursor to traverse the given rectangle of squares.
+         *
+         * @param minX The first column of the rectangle.
+         * @param maxX The last column of the rectangle.
+         * @param minY The first row of the rectangle.
+         * @param maxY The last row of the rectangle.
+         */
+        void reset(int minX, int maxX, int minY, int maxY) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            scan = isScanCheaper(minX, maxX, minY, maxY);
+            if (scan) {
+                index = 0;
+                end = numSlots;
+            } else {
+                y = minY;
+                index = squareStart[y * xDim + minX];
+                end = squareStart[y * xDim + maxX + 1];
+                pendingIndex = 0;
+                numPendingSlots = numPending;
+            }
+        }
+
+        /**
+         * @return The next node in the rectangle, null if there is none.
+         */
+        Node next() {
+            if (scan) {
+                while (index < end) {
+                    int s = index++;
+                    if (slotNodes[s] != null && isInRange(slotSquares[s], minX, maxX, minY, maxY)) {
+                        return slotNodes[s];
+                    }
+                }
+                return null;
+            }
+            while (true) {
+                while (index < end) {
+                    int s = gridSlots[index++];
+                    if (!slotPending[s]) {
+                        return slotNodes[s];
+                    }
+                }
+                if (y < maxY) { // go to the next row
+                    y++;
+                    index = squareStart[y * xDim + minX];
+                    end = squareStart[y * xDim + maxX + 1];
+                    continue;
+                }
+                while (pendingIndex < numPendingSlots) {
+                    int s = pending[pendingIndex++];
+                    if (slotNodes[s] != null && isInRange(slotSquares[s], minX, maxX, minY, maxY)) {
+                        return slotNodes[s];
+                    }
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -44,7 +44,6 @@ import sinalgo.nodes.Position;
 
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 /**
  * The class to save the nodes depending on their position. They are stored in a
@@ -63,28 +62,13 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
     //
     private double rMax;
 
-    // the local nodes to be able to simply traverse the nodes. A Vector is ok...
-    // well...
-    private Vector<Node> localNodes = new Vector<>();
-    // TODO: removing nodes from this list is expensive and costs O(n). The main
-    // difficulty to replace this datastructure with a better one is the
-    // 'getRandomNode'
-    // method, which returns a random entry in this list. For a vector, this is easy
-    // to achieve.
-    // Proposed solution: Implement a modified TreeSet, which is a red-black tree,
-    // and add
-    // to each entry of the tree a field that indicates the number of entries stored
-    // in
-    // its descendants. This would permit to access entries from the tree using an
-    // array-style
-    // method (return the i-th element) in O(log n) time. add, delete, contains also
-    // take O(log n)
-    // time. Furthermore, iteration is also very cheap with a stack of at most
-    // log(n) size.
-    // Use the same datastructure for the 3D implementation.
+    // the local nodes to be able to simply traverse the nodes. The list supports
+    // the removal of a node and the access to the i-th node (needed by
+    // 'getRandomNode') in O(log n) time.
+    private OrderStatisticNodeList localNodes = new OrderStatisticNodeList();
 
     // the core datastructure able to store the nodes depending on the position.
-    private NodeListInterface[][] lists;
+    private DLLNodeList[][] lists;
 
     // This instance of the Squarepos is used to return the squarePosition of a
     // node. It seams wierd to declare it
@@ -94,8 +78,9 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 
     // The instance of the GeometricNodeEnumeration. This is the instance that is
     // either created or reset by the
-    // getPossibleNeighborsEnumeration method.
-    private GeometricNodeEnumeration geometricNodeEnumeration = null;
+    // getPossibleNeighborsEnumeration method. There is one instance per thread, as
+    // the connections of the nodes may be updated in parallel.
+    private final ThreadLocal<GeometricNodeEnumeration> geometricNodeEnumeration = new ThreadLocal<>();
 
     /**
      * The constructor for the GeometricNodeCollection class.
@@ -122,12 +107,14 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 
     @Override
     public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
-        if (geometricNodeEnumeration == null) {
-            geometricNodeEnumeration = new GeometricNodeEnumeration(n);
+        GeometricNodeEnumeration enumeration = geometricNodeEnumeration.get();
+        if (enumeration == null) {
+            enumeration = new GeometricNodeEnumeration(n);
+            geometricNodeEnumeration.set(enumeration);
         } else {
-            geometricNodeEnumeration.resetForNode(n);
+            enumeration.resetForNode(n);
         }
-        return geometricNodeEnumeration;
+        return enumeration;
     }
 
     @Override
@@ -144,7 +131,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 
         lists[location.x][location.y].addNode(n);
 
-        localNodes.add(n);
+        localNodes.addNode(n);
     }
 
     @Override
@@ -181,14 +168,18 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
             throw new SinalgoFatalException("Geometric2DNodeCollection.removeNode(Node):\n" + "A node is being removed, but it is not"
                     + "located in the matrix cell " + "in which it claims to be.");
         }
-        localNodes.remove(n);
+        localNodes.removeNode(n);
     }
 
     private SquarePos getPosOfNode(Node n) {
+        return getPosOfNode(n, oneSquarePos);
+    }
+
+    private SquarePos getPosOfNode(Node n, SquarePos result) {
         Position p = n.getPosition();
-        oneSquarePos.x = (int) Math.floor(p.xCoord / rMax);
-        oneSquarePos.y = (int) Math.floor(p.yCoord / rMax);
-        return oneSquarePos;
+        result.x = (int) Math.floor(p.xCoord / rMax);
+        result.y = (int) Math.floor(p.yCoord / rMax);
+        return result;
     }
 
     class GeometricNodeEnumeration implements Enumeration<Node> {
@@ -211,7 +202,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
             }
 
             if (sNLE.hasMoreElements()) {
-                nI = sNLE.nextElement().iterator();
+                nI = sNLE.nextElement().newIterator();
             }
         }
 
@@ -230,7 +221,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
             }
 
             if (sNLE.hasMoreElements()) {
-                nI = sNLE.nextElement().iterator();
+                nI = sNLE.nextElement().newIterator();
             }
         }
 
@@ -240,7 +231,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
                 return true;
             } else {
                 while (sNLE.hasMoreElements()) {
-                    nI = sNLE.nextElement().iterator();
+                    nI = sNLE.nextElement().newIterator();
                     if (nI.hasNext()) {
                         return true;
                     }
@@ -268,7 +259,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
     }
 
     @Override
-    public Iterator<Node> iterator() {
+    protected Iterator<Node> _iterator() {
         return localNodes.iterator();
     }
 
@@ -281,12 +272,12 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
     /**
      * Enumeration to traverse the Lists of nodes to find possible neighbors.
      */
-    class GeometricNodeListEnumeration implements Enumeration<NodeListInterface> {
+    class GeometricNodeListEnumeration implements Enumeration<DLLNodeList> {
 
         // this is the collection of all the squares where neighbors may be.
         private SquarePositionCollection squares;
         // the location of the node this enumeration is for
-        private SquarePos location;
+        private SquarePos location = new SquarePos(0, 0);
         // the enumeration over the
         private Enumeration<SquarePos> listEnumeration;
         // the mask where the possible neighbors nay be. Initially all neighboring
@@ -304,7 +295,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
         public GeometricNodeListEnumeration(Node n) {
             squares = new SquarePositionCollection();
             // calculate the position in the datastructure of the node
-            location = getPosOfNode(n);
+            getPosOfNode(n, location);
 
             // fill the vector with the addresses of the neighborhood squares
             if (location.x == 0) {
@@ -358,7 +349,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
             }
 
             // calculate the position in the datastructure of the node
-            location = getPosOfNode(n);
+            getPosOfNode(n, location);
 
             // fill the vector with the addresses of the neighborhood squares
             if (location.x == 0) {
@@ -399,7 +390,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
         }
 
         @Override
-        public NodeListInterface nextElement() {
+        public DLLNodeList nextElement() {
             SquarePos sp = listEnumeration.nextElement();
             return lists[sp.x][sp.y];
         }
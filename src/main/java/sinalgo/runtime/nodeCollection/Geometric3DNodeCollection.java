@@ -39,11 +39,8 @@ package sinalgo.runtime.nodeCollection;
 import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
 import sinalgo.exception.SinalgoFatalException;
-import sinalgo.gui.transformation.PositionTransformation;
-import sinalgo.gui.transformation.Transformation3D;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
-import sinalgo.runtime.Main;
 
 import java.util.*;
 
@@ -61,15 +58,13 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
     private int numX, numY, numZ; // cardinality of matrix in each dimension
 
     // a hierarchical matrix to access the nodes based on their position
-    private NodeListInterface[][][] list;
+    private DLLNodeList[][][] list;
 
     // a flat list for fast iteration over all nodes
-    private Vector<Node> flatList = new Vector<>();
-    private boolean flatListChanged = false;
+    private OrderStatisticNodeList flatList = new OrderStatisticNodeList();
 
-    private Node[] sortedNodeArray = new Node[1];
-    private int sortedNodeArraySize = 0; // Number of non-null nodes in sortedNodeArray
-    private DepthComparator myDepthComparator = null;
+    // the nodes sorted by their distance to the viewer
+    private DepthSortedNodeArray sortedNodes = new DepthSortedNodeArray();
 
     // the maximal distance between any two connected nodes
     private double rMax = 0;
@@ -78,8 +73,10 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
     // private boolean sensitiveInformationChanged = false;
 
     // The enumeration object used repeatedly to access the potential neighbors of a
-    // node
-    private Geometric3DNodeEnumeration enumeration = new Geometric3DNodeEnumeration();
+    // node. There is one instance per thread, as the connections of the nodes may
+    // be updated in parallel.
+    private final ThreadLocal<Geometric3DNodeEnumeration> enumeration = ThreadLocal
+            .withInitial(Geometric3DNodeEnumeration::new);
 
     /**
      * Default constructor. Creates and initializes the geometric node collection.
@@ -122,31 +119,9 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
         return (int) Math.floor(c / rMax);
     }
 
-    private int lastVersionNumber = 0;
-
     @Override
     public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
-        if (!Configuration.draw3DGraphNodesInProperOrder) {
-            return flatList.elements();
-        }
-        PositionTransformation t3d = Main.getRuntime().getTransformator();
-        int actualVersionNumber = t3d.getVersionNumber();
-        if ((lastVersionNumber != actualVersionNumber) || (flatListChanged)) {
-            // the transformation has changed. Need to resort the array.
-            lastVersionNumber = actualVersionNumber;
-            flatListChanged = false;
-
-            sortedNodeArray = flatList.toArray(sortedNodeArray);
-            sortedNodeArraySize = flatList.size();
-            if (sortedNodeArraySize > 1) {
-                if (myDepthComparator == null) {
-                    myDepthComparator = new DepthComparator();
-                }
-                Arrays.sort(sortedNodeArray, 0, sortedNodeArraySize, myDepthComparator);
-            }
-        }
-
-        return new ArrayEnumeration(backToFront);
+        return sortedNodes.getSortedNodeEnumeration(flatList, backToFront);
     }
 
     @Override
@@ -155,13 +130,13 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
     }
 
     @Override
-    public Iterator<Node> iterator() {
+    protected Iterator<Node> _iterator() {
         return new StateSensitiveIterator();
     }
 
     /**
-     * This is a wrapper class around an Iterator. It sets the flatListChanted field
-     * to true when someone deletes a Node from the flatList by calling the remove
+     * This is a wrapper class around an Iterator. It marks the sorted nodes as
+     * changed when someone deletes a Node from the flatList by calling the remove
      * method of the iterator.
      */
     private class StateSensitiveIterator implements Iterator<Node> {
@@ -188,15 +163,16 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
         @Override
         public void remove() {
             iter.remove();
-            flatListChanged = true;
+            sortedNodes.setChanged();
         }
 
     }
 
     @Override
     public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
-        enumeration.resetForNode(n);
-        return enumeration;
+        Geometric3DNodeEnumeration e = enumeration.get();
+        e.resetForNode(n);
+        return e;
     }
 
     @Override
@@ -210,8 +186,8 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
         n.nodeCollectionInfo = new CubePos(x, y, z);
 
         list[x][y][z].addNode(n);
-        flatList.add(n);
-        flatListChanged = true;
+        flatList.addNode(n);
+        sortedNodes.setChanged();
         // sensitiveInformationChanged = true;
     }
 
@@ -224,8 +200,8 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
             throw new SinalgoFatalException("Geometric3DNodeCollection.removeNode(Node):\n" + "A node is being removed, but it is not "
                     + "located in the matrix cell " + "in which it claims to be.");
         }
-        flatList.remove(n);
-        flatListChanged = true;
+        flatList.removeNode(n);
+        sortedNodes.setChanged();
         n.nodeCollectionInfo = null;
     }
 
@@ -329,7 +305,7 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
                 }
             } while (ox + dx < 0 || oy + dy < 0 || oz + dz < 0 || ox + dx >= numX || oy + dy >= numY
                     || oz + dz >= numZ);
-            iterator = list[ox + dx][oy + dy][oz + dz].iterator(); // get new iterator
+            iterator = list[ox + dx][oy + dy][oz + dz].newIterator(); // get new iterator
             return true;
         }
 
@@ -350,71 +326,4 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
             return iterator.next();
         }
     }
-
-    // An enumeration over the array of sorted nodes.
-    private class ArrayEnumeration implements Enumeration<Node> {
-
-        boolean backToFront;
-
-        /**
-         * Constructs an arrayEnumeration with the given modal.
-         *
-         * @param backToFront Indicates whether the array has to be sorted forward or backward.
-         *                    Set to true to sort it so that the element with the biggest
-         *                    distance to the viewer has is traversed first.
-         */
-        private ArrayEnumeration(boolean backToFront) {
-            this.backToFront = backToFront;
-        }
-
-        int currentIndex = 0;
-
-        @Override
-        public boolean hasMoreElements() {
-            return currentIndex < sortedNodeArraySize;
-        }
-
-        @Override
-        public Node nextElement() {
-            if (backToFront) {
-                return sortedNodeArray[currentIndex++]; // implicit incrementation
-            } else {
-                return sortedNodeArray[sortedNodeArraySize - ++currentIndex]; // implicit incrementation BEFORE
-                // evaulation to have the offset one
-                // smaller
-            }
-        }
-    }
-
-    /**
-     * Sorts the elements such that nodes in the back are drawn first
-     */
-    private class DepthComparator implements Comparator<Node> {
-
-        PositionTransformation pt = null;
-        Transformation3D t3d = null;
-
-        /**
-         * Creates a new DepthComparator instance. Note that the DepthComparator only
-         * does something in 3 Dimensions.
-         */
-        private DepthComparator() {
-            pt = Main.getRuntime().getTransformator();
-            if (pt instanceof Transformation3D) {
-                t3d = (Transformation3D) pt;
-            }
-        }
-
-        @Override
-        public int compare(Node n1, Node n2) {
-            if (t3d != null) {
-                double zN1 = t3d.translateToGUIPositionAndGetZOffset(n1.getPosition());
-                double zN2 = t3d.translateToGUIPositionAndGetZOffset(n2.getPosition());
-                return (int) (zN1 - zN2);
-            } else {
-                // The deptcompator is not used in 2 dimensions.
-                return 0;
-            }
-        }
-    }
 }
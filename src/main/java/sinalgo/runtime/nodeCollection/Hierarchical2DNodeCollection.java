@@ -0,0 +1,343 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.models.ConnectivityModel;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A node collection for 2D that supports a different range for each node, e.g.
+ * for a few long-range antennas among many short-range sensors.
+ * <p>
+ * The {@link Geometric2DNodeCollection} stores all nodes in squares with side
+ * length rMax, the largest range of any node. If most nodes have a much smaller
+ * range, the possible neighbors of a node are mostly nodes that are too far
+ * away. This collection keeps several grids instead (see
+ * {@link FlatSquareGrid}): The squares of the first grid have side length rMax,
+ * and each further grid halves the side length of the squares. Each node is
+ * stored in the grid with the smallest squares that are still at least as
+ * large as its range, which is obtained from
+ * {@link ConnectivityModel#getMaximumRange(Node)}.
+ * <p>
+ * The possible neighbors of a node with range r are all nodes within distance r
+ * of the node, together with all nodes that contain the node within their own
+ * range. They are found by traversing in each grid the squares within distance
+ * max(r, r') of the node, where r' is the largest range of the nodes in this
+ * grid. Thus, the possible neighbors are symmetric, and the number of possible
+ * neighbors stays proportional to the number of nodes within range.
+ * <p>
+ * The number of grids is read from the entry
+ * <code>HierarchicalNodeCollection/levels</code> of the configuration file
+ * (default 4). Grids that would need more than about four million squares are
+ * omitted. When the range of a node changes without changing its position or
+ * connectivity model, call
+ * {@link NodeCollectionInterface#updateNodeCollection(Node)} for the node.
+ * <p>
+ * To use this collection, set the <code>nodeCollection2D</code> entry of the
+ * configuration file to
+ * <code>sinalgo.runtime.nodeCollection.Hierarchical2DNodeCollection</code>.
+ */
+public class Hierarchical2DNodeCollection extends NodeCollectionInterface {
+
+    // the default number of grids
+    private static final int DEFAULT_LEVELS = 4;
+
+    // the maximum number of squares of a grid
+    private static final long MAX_SQUARES = 1 << 22;
+
+    private double rMax;
+
+    // the nodes in the order they were added, to traverse the nodes
+    private OrderStatisticNodeList localNodes = new OrderStatisticNodeList();
+
+    // the grids, from the largest to the smallest squares
+    private FlatSquareGrid[] grids;
+
+    // for each grid, the largest range of a node that was stored in this grid
+    private double[] maxRanges;
+
+    // one enumeration per thread, as the connections of the nodes may be updated
+    // in parallel
+    private final ThreadLocal<NeighborEnumeration> neighborEnumeration = new ThreadLocal<>();
+
+    /**
+     * The constructor for the Hierarchical2DNodeCollection class.
+     */
+    public Hierarchical2DNodeCollection() {
+        int levels = DEFAULT_LEVELS;
+        // Immediately stop execution if rMax is not defined in the xml config file.
+        try {
+            rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+            if (Configuration.hasParameter("HierarchicalNodeCollection/levels")) {
+                levels = Math.max(1, Configuration.getIntegerParameter("HierarchicalNodeCollection/levels"));
+            }
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException(e.getMessage());
+        }
+        int numGrids = 1;
+        double size = rMax;
+        while (numGrids < levels) {
+            size /= 2;
+            if (Math.ceil(Configuration.dimX / size) * Math.ceil(Configuration.dimY / size) > MAX_SQUARES) {
+                break;
+            }
+            numGrids++;
+        }
+        grids = new FlatSquareGrid[numGrids];
+        maxRanges = new double[numGrids];
+        size = rMax;
+        for (int l = 0; l < numGrids; l++) {
+            grids[l] = new FlatSquareGrid(size, Configuration.dimX, Configuration.dimY);
+            size /= 2;
+        }
+    }
+
+    /**
+     * The grid and slot of a node.
+     */
+    private static class LevelSlot implements NodeCollectionInfoInterface {
+
+        private int level;
+        private int slot;
+
+        private LevelSlot(int level, int slot) {
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * @param n A node.
+     * @return The range of the given node, as reported by its connectivity model,
+     * and rMax if the range is not known.
+     */
+    private double getRange(Node n) {
+        ConnectivityModel cm = n.getConnectivityModel();
+        double range = cm == null ? -1 : cm.getMaximumRange(n);
+        return range < 0 ? rMax : range;
+    }
+
+    /**
+     * @param range The range of a node.
+     * @return The grid with the smallest squares that are at least as large as
+     * the given range.
+     */
+    private int getLevel(double range) {
+        int l = 0;
+        while (l + 1 < grids.length && range <= grids[l + 1].getSquareSize()) {
+            l++;
+        }
+        return l;
+    }
+
+    private void addToGrid(Node n, LevelSlot info) {
+        double range = getRange(n);
+        int l = getLevel(range);
+        info.level = l;
+        info.slot = grids[l].add(n);
+        maxRanges[l] = Math.max(maxRanges[l], range);
+    }
+
+    @Override
+    protected void _addNode(Node n) {
+        n.holdInNodeCollection = true;
+        LevelSlot info = new LevelSlot(0, 0);
+        addToGrid(n, info);
+        n.nodeCollectionInfo = info;
+        localNodes.addNode(n);
+    }
+
+    @Override
+    protected void _removeNode(Node n) {
+        n.holdInNodeCollection = false;
+        LevelSlot info = getInfoOfNode(n);
+        grids[info.level].remove(info.slot);
+        localNodes.removeNode(n);
+    }
+
+    @Override
+    protected void _updateNodeCollection(Node n) {
+        if (!n.holdInNodeCollection) {
+            return; // the node is not yet hold by this node collection
+        }
+        LevelSlot info = getInfoOfNode(n);
+        double range = getRange(n);
+        if (getLevel(range) == info.level) {
+            grids[info.level].update(info.slot);
+            maxRanges[info.level] = Math.max(maxRanges[info.level], range);
+        } else {
+            grids[info.level].remove(info.slot);
+            addToGrid(n, info);
+        }
+    }
+
+    private LevelSlot getInfoOfNode(Node n) {
+        if (n.nodeCollectionInfo instanceof LevelSlot) {
+            LevelSlot info = (LevelSlot) n.nodeCollectionInfo;
+            if (grids[info.level].getNode(info.slot) == n) {
+                return info;
+            }
+        }
+        throw new SinalgoFatalException("Hierarchical2DNodeCollection:\n"
+                + "A node is being accessed which is not contained in this node collection.");
+    }
+
+    @Override
+    public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+        for (FlatSquareGrid g : grids) {
+            g.prepareQuery();
+        }
+        NeighborEnumeration enumeration = neighborEnumeration.get();
+        if (enumeration == null) {
+            enumeration = new NeighborEnumeration();
+            neighborEnumeration.set(enumeration);
+        }
+        enumeration.resetForNode(n);
+        return enumeration;
+    }
+
+    @Override
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        Position p = n.getPosition();
+        double range = getRange(n);
+        for (int l = 0; l < grids.length; l++) {
+            FlatSquareGrid g = grids[l];
+            if (g.size() > 0) {
+                g.prepareQuery();
+                double d = Math.max(range, maxRanges[l]) + Position.epsilonPosition;
+                g.forEachNode(g.getColumn(p.xCoord - d), g.getColumn(p.xCoord + d), g.getRow(p.yCoord - d),
+                        g.getRow(p.yCoord + d), action);
+            }
+        }
+    }
+
+    /**
+     * Enumeration over the possible neighbors of a node, grid by grid.
+     */
+    private class NeighborEnumeration implements Enumeration<Node> {
+
+        private final FlatSquareGrid.Cursor[] cursors = new FlatSquareGrid.Cursor[grids.length];
+        private Position position;
+        private double range;
+        private int level; // the grid of the current cursor
+        private Node next;
+
+        private NeighborEnumeration() {
+            for (int l = 0; l < grids.length; l++) {
+                cursors[l] = grids[l].new Cursor();
+            }
+        }
+
+        /**
+         * Resets this enumeration to traverse the possible neighbors of the given
+         * node.
+         *
+         * @param n The node to get the neighbor candidates for.
+         */
+        private void resetForNode(Node n) {
+            position = n.getPosition();
+            range = getRange(n);
+            level = -1;
+            next = null;
+            advance();
+        }
+
+        private void advance() {
+            next = level >= 0 ? cursors[level].next() : null;
+            while (next == null && level + 1 < grids.length) {
+                level++;
+                FlatSquareGrid g = grids[level];
+                if (g.size() > 0) {
+                    double d = Math.max(range, maxRanges[level]) + Position.epsilonPosition;
+                    cursors[level].reset(g.getColumn(position.xCoord - d), g.getColumn(position.xCoord + d),
+                            g.getRow(position.yCoord - d), g.getRow(position.yCoord + d));
+                    next = cursors[level].next();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next != null;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node n = next;
+            advance();
+            return n;
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+        // in 2D returns the same as getNodeEnumeration()
+        return localNodes.elements();
+    }
+
+    @Override
+    public Enumeration<Node> getNodeEnumeration() {
+        return localNodes.elements();
+    }
+
+    @Override
+    protected Iterator<Node> _iterator() {
+        return localNodes.iterator();
+    }
+
+    @Override
+    public Node getRandomNode() {
+        return super.defaultGetRandomNode(localNodes);
+    }
+
+    @Override
+    public int size() {
+        return localNodes.size();
+    }
+}
@@ -0,0 +1,682 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A node collection for 2D and 3D that stores the nodes in a k-d tree, and
+ * answers arbitrary range queries ({@link #range(Position, double)}) and
+ * nearest neighbor queries ({@link #kNearest(Position, int)}) without testing
+ * all nodes. The possible neighbors of a node are the nodes within distance
+ * rMax of the node.
+ * <p>
+ * The tree is bulk-loaded: All nodes are sorted into a balanced tree at once,
+ * splitting each subtree at the median of the dimension in which its nodes are
+ * spread most. The tree is stored implicitly in flat arrays, the root of each
+ * subtree being the middle element of its range. When a node is added, removed
+ * or moved, it is marked as pending instead of changing the tree: The queries
+ * ignore the pending nodes in the tree and test them separately. Once there are
+ * more than a few pending nodes, the tree is rebuilt upon the next query.
+ * Therefore, a round in which many nodes move costs a single rebuild, which
+ * takes O(n log n) time.
+ * <p>
+ * To use this collection, set the <code>nodeCollection2D</code> or the
+ * <code>nodeCollection3D</code> entry of the configuration file to
+ * <code>sinalgo.runtime.nodeCollection.KdTreeNodeCollection</code>.
+ */
+public class KdTreeNodeCollection extends NodeCollectionInterface {
+
+    // the number of pending nodes that are tested by each query before the tree
+    // is rebuilt
+    private static final int MAX_PENDING = 64;
+
+    // the number of dimensions in which the nodes are split
+    private final int dims;
+
+    // the maximal distance between any two connected nodes
+    private double rMax;
+
+    // the nodes in the order they were added, to traverse the nodes
+    private OrderStatisticNodeList localNodes = new OrderStatisticNodeList();
+
+    // the nodes sorted by their distance to the viewer, only used in 3D
+    private DepthSortedNodeArray sortedNodes = new DepthSortedNodeArray();
+
+    // the node in each slot, null if the slot is free
+    private Node[] slotNodes = new Node[16];
+    // whether a slot changed since the tree was last built
+    private boolean[] slotPending = new boolean[16];
+    // the position in the tree of each slot that is not pending
+    private int[] slotTreeIndex = new int[16];
+    // the number of slots used so far
+    private int numSlots = 0;
+
+    private int[] freeSlots = new int[16];
+    private int numFreeSlots = 0;
+
+    // the slots that changed since the tree was last built
+    private int[] pending = new int[16];
+    // volatile, as the tree may be rebuilt by the first of several threads that
+    // query the tree in parallel
+    private volatile int numPending = 0;
+
+    // the tree: the slot and the coordinates of the node at each position of the
+    // tree, and the dimension in which the subtree rooted at this position is
+    // split. The subtree of the range [lo, hi) is rooted at (lo + hi) / 2.
+    private int treeSize = 0;
+    private int[] treeSlots = new int[16];
+    private double[] treeCoords = new double[48];
+    private byte[] treeSplit = new byte[16];
+
+    // one enumeration per thread, as the connections of the nodes may be updated
+    // in parallel
+    private final ThreadLocal<NeighborEnumeration> neighborEnumeration = ThreadLocal
+            .withInitial(NeighborEnumeration::new);
+
+    /**
+     * The constructor for the KdTreeNodeCollection class.
+     */
+    public KdTreeNodeCollection() {
+        // Immediately stop execution if rMax is not defined in the xml config file.
+        try {
+            rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException(e.getMessage());
+        }
+        dims = Configuration.dimensions == 3 ? 3 : 2;
+    }
+
+    /**
+     * The slot of a node in this collection.
+     */
+    private static class Slot implements NodeCollectionInfoInterface {
+
+        private int index;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+    }
+
+    @Override
+    protected void _addNode(Node n) {
+        n.holdInNodeCollection = true;
+        int s;
+        if (numFreeSlots > 0) {
+            s = freeSlots[--numFreeSlots];
+        } else {
+            if (numSlots == slotNodes.length) {
+                int length = 2 * numSlots;
+                slotNodes = Arrays.copyOf(slotNodes, length);
+                slotPending = Arrays.copyOf(slotPending, length);
+                slotTreeIndex = Arrays.copyOf(slotTreeIndex, length);
+            }
+            s = numSlots++;
+        }
+        slotNodes[s] = n;
+        markPending(s);
+        n.nodeCollectionInfo = new Slot(s);
+        localNodes.addNode(n);
+        sortedNodes.setChanged();
+    }
+
+    @Override
+    protected void _removeNode(Node n) {
+        n.holdInNodeCollection = false;
+        removeFromTree(n);
+        localNodes.removeNode(n);
+        sortedNodes.setChanged();
+    }
+
+    private void removeFromTree(Node n) {
+        int s = getSlotOfNode(n);
+        slotNodes[s] = null;
+        markPending(s);
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, 2 * numFreeSlots);
+        }
+        freeSlots[numFreeSlots++] = s;
+    }
+
+    @Override
+    protected void _updateNodeCollection(Node n) {
+        if (!n.holdInNodeCollection) {
+            return; // the node is not yet hold by this node collection
+        }
+        int s = getSlotOfNode(n);
+        if (!slotPending[s]) {
+            Position p = n.getPosition();
+            int i = 3 * slotTreeIndex[s];
+            if (treeCoords[i] != p.xCoord || treeCoords[i + 1] != p.yCoord || treeCoords[i + 2] != p.zCoord) {
+                markPending(s);
+            }
+        }
+    }
+
+    private int getSlotOfNode(Node n) {
+        if (n.nodeCollectionInfo instanceof Slot) {
+            int s = ((Slot) n.nodeCollectionInfo).index;
+            if (s < numSlots && slotNodes[s] == n) {
+                return s;
+            }
+        }
+        throw new SinalgoFatalException("KdTreeNodeCollection:\n"
+                + "A node is being accessed which is not contained in this node collection.");
+    }
+
+    private void markPending(int s) {
+        if (!slotPending[s]) {
+            slotPending[s] = true;
+            if (numPending == pending.length) {
+                pending = Arrays.copyOf(pending, 2 * numPending);
+            }
+            pending[numPending] = s;
+            numPending = numPending + 1;
+        }
+    }
+
+    /**
+     * Rebuilds the tree if too many nodes changed since the tree was last built.
+     * This method is called before each query.
+     */
+    private void prepareQuery() {
+        if (numPending > MAX_PENDING) {
+            synchronized (this) {
+                if (numPending > MAX_PENDING) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the tree from scratch.
+     */
+    private void rebuild() {
+        int numNodes = localNodes.size();
+        if (treeSlots.length < numNodes) {
+            int length = Math.max(numNodes, 2 * treeSlots.length);
+            treeSlots = new int[length];
+            treeCoords = new double[3 * length];
+            treeSplit = new byte[length];
+        }
+        treeSize = 0;
+        for (int s = 0; s < numSlots; s++) {
+            Node n = slotNodes[s];
+            if (n != null) {
+                Position p = n.getPosition();
+                treeSlots[treeSize] = s;
+                treeCoords[3 * treeSize] = p.xCoord;
+                treeCoords[3 * treeSize + 1] = p.yCoord;
+                treeCoords[3 * treeSize + 2] = p.zCoord;
+                treeSize++;
+            }
+        }
+        build(0, treeSize);
+        for (int i = 0; i < treeSize; i++) {
+            slotTreeIndex[treeSlots[i]] = i;
+        }
+        for (int i = 0; i < numPending; i++) {
+            slotPending[pending[i]] = false;
+        }
+        numPending = 0;
+    }
+
+    /**
+     * Builds the subtree of the given range of the tree.
+     *
+     * @param lo The first position of the range.
+     * @param hi The position after the last position of the range.
+     */
+    private void build(int lo, int hi) {
+        if (hi - lo < 2) {
+            return;
+        }
+        // split in the dimension in which the nodes are spread most
+        int split = 0;
+        double maxSpread = -1;
+        for (int d = 0; d < dims; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double c = treeCoords[3 * i + d];
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (max - min > maxSpread) {
+                maxSpread = max - min;
+                split = d;
+            }
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, split);
+        treeSplit[mid] = (byte) split;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /**
+     * Rearranges the given range of the tree such that the node at position k is
+     * the one that would be there if the range was sorted by the given
+     * coordinate, with no larger coordinates before it and no smaller ones after
+     * it.
+     */
+    private void select(int lo, int hi, int k, int d) {
+        while (hi > lo) {
+            // median of three as pivot
+            int m = (lo + hi) >>> 1;
+            if (coord(m, d) < coord(lo, d)) {
+                swap(m, lo);
+            }
+            if (coord(hi, d) < coord(lo, d)) {
+                swap(hi, lo);
+            }
+            if (coord(hi, d) < coord(m, d)) {
+                swap(hi, m);
+            }
+            double pivot = coord(m, d);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coord(i, d) < pivot) {
+                    i++;
+                }
+                while (coord(j, d) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coord(int i, int d) {
+        return treeCoords[3 * i + d];
+    }
+
+    private void swap(int i, int j) {
+        int s = treeSlots[i];
+        treeSlots[i] = treeSlots[j];
+        treeSlots[j] = s;
+        for (int d = 0; d < 3; d++) {
+            double c = treeCoords[3 * i + d];
+            treeCoords[3 * i + d] = treeCoords[3 * j + d];
+            treeCoords[3 * j + d] = c;
+        }
+    }
+
+    private double squareDistance(int i, double x, double y, double z) {
+        double dx = treeCoords[3 * i] - x;
+        double dy = treeCoords[3 * i + 1] - y;
+        double dz = treeCoords[3 * i + 2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Performs the given action for each node within the given distance of the
+     * given position.
+     */
+    private void forEachInRange(double x, double y, double z, double radius, Consumer<? super Node> action) {
+        prepareQuery();
+        double squareRadius = radius * radius;
+        searchRange(0, treeSize, x, y, z, radius, squareRadius, action);
+        for (int i = 0, num = numPending; i < num; i++) {
+            Node n = slotNodes[pending[i]];
+            if (n != null) {
+                Position p = n.getPosition();
+                double dx = p.xCoord - x;
+                double dy = p.yCoord - y;
+                double dz = p.zCoord - z;
+                if (dx * dx + dy * dy + dz * dz <= squareRadius) {
+                    action.accept(n);
+                }
+            }
+        }
+    }
+
+    private void searchRange(int lo, int hi, double x, double y, double z, double radius, double squareRadius,
+                             Consumer<? super Node> action) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int s = treeSlots[mid];
+            if (!slotPending[s] && squareDistance(mid, x, y, z) <= squareRadius) {
+                action.accept(slotNodes[s]);
+            }
+            int d = treeSplit[mid];
+            double diff = (d == 0 ? x : d == 1 ? y : z) - coord(mid, d);
+            boolean left = diff <= radius && mid > lo;
+            boolean right = diff >= -radius && mid + 1 < hi;
+            if (left && right) {
+                searchRange(lo, mid, x, y, z, radius, squareRadius, action);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else if (right) {
+                lo = mid + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<Node> range(Position center, double radius) {
+        List<Node> result = new ArrayList<>();
+        forEachInRange(center.xCoord, center.yCoord, center.zCoord, radius, result::add);
+        return result;
+    }
+
+    @Override
+    public List<Node> kNearest(Position center, int k) {
+        prepareQuery();
+        NearestNodes nearest = new NearestNodes(Math.max(0, Math.min(k, localNodes.size())));
+        if (nearest.capacity > 0) {
+            searchNearest(0, treeSize, center.xCoord, center.yCoord, center.zCoord, nearest);
+            for (int i = 0, num = numPending; i < num; i++) {
+                Node n = slotNodes[pending[i]];
+                if (n != null) {
+                    nearest.offer(n, n.getPosition().squareDistanceTo(center));
+                }
+            }
+        }
+        return nearest.toSortedList();
+    }
+
+    private void searchNearest(int lo, int hi, double x, double y, double z, NearestNodes nearest) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int s = treeSlots[mid];
+        if (!slotPending[s]) {
+            nearest.offer(slotNodes[s], squareDistance(mid, x, y, z));
+        }
+        int d = treeSplit[mid];
+        double diff = (d == 0 ? x : d == 1 ? y : z) - coord(mid, d);
+        // first search the side of the split that contains the position
+        if (diff <= 0) {
+            searchNearest(lo, mid, x, y, z, nearest);
+            if (!nearest.isFull() || diff * diff <= nearest.worstDistance()) {
+                searchNearest(mid + 1, hi, x, y, z, nearest);
+            }
+        } else {
+            searchNearest(mid + 1, hi, x, y, z, nearest);
+            if (!nearest.isFull() || diff * diff <= nearest.worstDistance()) {
+                searchNearest(lo, mid, x, y, z, nearest);
+            }
+        }
+    }
+
+    /**
+     * The k nodes closest to a position found so far, stored in a max-heap
+     * ordered by the distance and the ID of the nodes.
+     */
+    private static class NearestNodes {
+
+        private final int capacity;
+        private final Node[] nodes;
+        private final double[] distances; // the square distances
+        private int size = 0;
+
+        private NearestNodes(int capacity) {
+            this.capacity = capacity;
+            nodes = new Node[capacity];
+            distances = new double[capacity];
+        }
+
+        private boolean isFull() {
+            return size == capacity;
+        }
+
+        private double worstDistance() {
+            return distances[0];
+        }
+
+        private boolean isFurther(int i, double distance, Node n) {
+            return distances[i] > distance || (distances[i] == distance && nodes[i].ID > n.ID);
+        }
+
+        private void offer(Node n, double distance) {
+            int i;
+            if (size < capacity) {
+                // sift up
+                i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (isFurther(parent, distance, n)) {
+                        break;
+                    }
+                    nodes[i] = nodes[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+            } else {
+                if (!isFurther(0, distance, n)) {
+                    return;
+                }
+                // replace the root and sift down
+                i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && isFurther(child + 1, distances[child], nodes[child])) {
+                        child++;
+                    }
+                    if (!isFurther(child, distance, n)) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+            }
+            nodes[i] = n;
+            distances[i] = distance;
+        }
+
+        private List<Node> toSortedList() {
+            Node[] result = new Node[size];
+            // remove the furthest node repeatedly
+            for (int k = size - 1; k >= 0; k--) {
+                result[k] = nodes[0];
+                Node last = nodes[size - 1];
+                double lastDistance = distances[size - 1];
+                size--;
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && isFurther(child + 1, distances[child], nodes[child])) {
+                        child++;
+                    }
+                    if (!isFurther(child, lastDistance, last)) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                if (size > 0) {
+                    nodes[i] = last;
+                    distances[i] = lastDistance;
+                }
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+        NeighborEnumeration e = neighborEnumeration.get();
+        e.resetForNode(n);
+        return e;
+    }
+
+    @Override
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        Position p = n.getPosition();
+        forEachInRange(p.xCoord, p.yCoord, p.zCoord, rMax + Position.epsilonPosition, action);
+    }
+
+    /**
+     * Enumeration over the possible neighbors of a node, which are collected
+     * when the enumeration is reset.
+     */
+    private class NeighborEnumeration implements Enumeration<Node>, Consumer<Node> {
+
+        private Node[] neighbors = new Node[16];
+        private int size = 0;
+        private int index = 0;
+
+        /**
+         * Resets this enumeration to traverse the possible neighbors of the given
+         * node.
+         *
+         * @param n The node to get the neighbor candidates for.
+         */
+        private void resetForNode(Node n) {
+            Arrays.fill(neighbors, 0, size, null);
+            size = 0;
+            index = 0;
+            forEachPossibleNeighbor(n, this);
+        }
+
+        @Override
+        public void accept(Node n) {
+            if (size == neighbors.length) {
+                neighbors = Arrays.copyOf(neighbors, 2 * size);
+            }
+            neighbors[size++] = n;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return index < size;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return neighbors[index++];
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+        if (dims == 3) {
+            return sortedNodes.getSortedNodeEnumeration(localNodes, backToFront);
+        }
+        return localNodes.elements();
+    }
+
+    @Override
+    public Enumeration<Node> getNodeEnumeration() {
+        return localNodes.elements();
+    }
+
+    @Override
+    protected Iterator<Node> _iterator() {
+        return new TreeIterator();
+    }
+
+    /**
+     * An iterator over all nodes that also removes a node from the tree when it
+     * is removed through the iterator.
+     */
+    private class TreeIterator implements Iterator<Node> {
+
+        private final Iterator<Node> iter = localNodes.iterator();
+        private Node last = null;
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            last = iter.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+            removeFromTree(last);
+            sortedNodes.setChanged();
+        }
+    }
+
+    @Override
+    public Node getRandomNode() {
+        return super.defaultGetRandomNode(localNodes);
+    }
+
+    @Override
+    public int size() {
+        return localNodes.size();
+    }
+}
@@ -37,11 +37,17 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package sinalgo.runtime.nodeCollection;
 
 import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
 import sinalgo.tools.statistics.Distribution;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Vector;
+import java.util.function.Consumer;
 
 /**
  * The node collection is responsible to store the nodes in a convenient way for
@@ -88,8 +94,56 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
      */
     public abstract Enumeration<Node> getSortedNodeEnumeration(boolean backToFront);
 
+    /**
+     * Returns an iterator over all nodes. A node removed through
+     * {@link Iterator#remove()} is also removed from the index of the nodes by
+     * their ID, see {@link #getNodeByID(int)}.
+     *
+     * @return An iterator over all nodes.
+     */
     @Override
-    public abstract Iterator<Node> iterator();
+    public final Iterator<Node> iterator() {
+        return new IndexedIterator(_iterator());
+    }
+
+    /**
+     * The subclass implements this method to return an iterator over all nodes.
+     *
+     * @return An iterator over all nodes.
+     */
+    protected abstract Iterator<Node> _iterator();
+
+    /**
+     * A wrapper around the iterator of the subclass that removes a node from the
+     * index of the nodes by their ID when it is removed through the iterator.
+     */
+    private class IndexedIterator implements Iterator<Node> {
+
+        private final Iterator<Node> iter;
+        private Node last = null;
+
+        private IndexedIterator(Iterator<Node> iter) {
+            this.iter = iter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            last = iter.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+            unindexNode(last);
+            last = null;
+        }
+    }
 
     /**
      * For the given node n, retrive only the nodes which are possible neighbor
@@ -109,6 +163,130 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
      */
     public abstract Enumeration<Node> getPossibleNeighborsEnumeration(Node n);
 
+    /**
+     * Performs the given action for each possible neighbor candidate of the given
+     * node, i.e. for each node returned by
+     * {@link #getPossibleNeighborsEnumeration(Node)}, including the node n itself.
+     * <p>
+     * The default implementation iterates over this enumeration. Node collections
+     * that can traverse the candidates more efficiently override this method. The
+     * action must not add, remove or move any nodes.
+     *
+     * @param n      The node to get the neighbor candidates for.
+     * @param action The action to perform for each neighbor candidate.
+     */
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        Enumeration<Node> pNE = getPossibleNeighborsEnumeration(n);
+        while (pNE.hasMoreElements()) {
+            action.accept(pNE.nextElement());
+        }
+    }
+
+    /**
+     * Returns all nodes whose distance to the given position is at most the given
+     * radius.
+     * <p>
+     * The default implementation tests all nodes of this collection. Node
+     * collections that can answer range queries more efficiently override this
+     * method.
+     *
+     * @param center The center of the range.
+     * @param radius The radius of the range.
+     * @return A new list with all nodes within the range, in no particular order.
+     */
+    public List<Node> range(Position center, double radius) {
+        List<Node> result = new ArrayList<>();
+        double squareRadius = radius * radius;
+        for (Node n : this) {
+            if (n.getPosition().squareDistanceTo(center) <= squareRadius) {
+                result.add(n);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the k nodes closest to the given position, sorted by their distance
+     * to the position. Nodes at the same distance are sorted by their ID. If the
+     * collection contains less than k nodes, all nodes are returned.
+     * <p>
+     * The default implementation sorts all nodes of this collection. Node
+     * collections that can answer nearest neighbor queries more efficiently
+     * override this method.
+     *
+     * @param center The position to which the distance is measured.
+     * @param k      The number of nodes to return.
+     * @return A new list with the k nodes closest to the given position.
+     */
+    public List<Node> kNearest(Position center, int k) {
+        List<Node> result = new ArrayList<>(size());
+        for (Node n : this) {
+            result.add(n);
+        }
+        result.sort(Comparator.comparingDouble((Node n) -> n.getPosition().squareDistanceTo(center))
+                .thenComparingInt(n -> n.ID));
+        return new ArrayList<>(result.subList(0, Math.min(Math.max(k, 0), result.size())));
+    }
+
+    // the nodes of this collection indexed by their ID. As the IDs are assigned
+    // consecutively, this array is dense, apart from the IDs of removed nodes.
+    private Node[] nodesByID = new Node[16];
+
+    // the number of nodes that are not in nodesByID, because their ID is negative,
+    // far beyond the largest ID so far, or shared with another node
+    private int numUnindexedNodes = 0;
+
+    /**
+     * Returns the node with the given ID.
+     * <p>
+     * The node collection keeps an array of its nodes indexed by their ID, such
+     * that this method takes constant time. Only if some nodes could not be
+     * indexed, e.g. because several nodes have the same ID, the nodes are searched
+     * if the ID is not in the index. Note that the ID of a node must not change
+     * while the node is in this collection.
+     *
+     * @param id The ID of the node to return.
+     * @return The node with the given ID, null if there is no such node in this
+     * collection.
+     */
+    public Node getNodeByID(int id) {
+        if (id >= 0 && id < nodesByID.length) {
+            Node n = nodesByID[id];
+            if (n != null) {
+                return n;
+            }
+        }
+        if (numUnindexedNodes > 0) {
+            for (Node n : this) {
+                if (n.ID == id) {
+                    return n;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void indexNode(Node n) {
+        int id = n.ID;
+        if (id >= nodesByID.length && id >= 0 && id < 2 * nodesByID.length + 4 * size()) {
+            nodesByID = Arrays.copyOf(nodesByID, Math.max(2 * nodesByID.length, id + 1));
+        }
+        if (id >= 0 && id < nodesByID.length && nodesByID[id] == null) {
+            nodesByID[id] = n;
+        } else {
+            numUnindexedNodes++;
+        }
+    }
+
+    private void unindexNode(Node n) {
+        int id = n.ID;
+        if (id >= 0 && id < nodesByID.length && nodesByID[id] == n) {
+            nodesByID[id] = null;
+        } else {
+            numUnindexedNodes--;
+        }
+    }
+
     /**
      * Adds a node to this node collection.
      * <p>
@@ -125,6 +303,7 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
      */
     public void addNode(Node n) {
         _addNode(n);
+        indexNode(n);
         for (NodeCollectionListener l : listeners) {
             l.nodeAdded(n);
         }
@@ -149,6 +328,7 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
      */
     public void removeNode(Node n) {
         _removeNode(n);
+        unindexNode(n);
         for (NodeCollectionListener l : listeners) {
             l.nodeRemoved(n);
         }
@@ -213,6 +393,16 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
         }
     }
 
+    protected Node defaultGetRandomNode(OrderStatisticNodeList nodes) {
+        if (nodes.size() > 0) {
+            java.util.Random rand = Distribution.getRandom();
+            int position = rand.nextInt(nodes.size());
+            return nodes.get(position);
+        } else {
+            return null;
+        }
+    }
+
 
     /**
      * Returns the number of nodes stored in this collection.
@@ -0,0 +1,504 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.nodes.Node;
+
+import java.util.ConcurrentModificationException;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A node list that keeps the nodes in the order they were added, and allows to
+ * add, remove and find a node, as well as to access the i-th node, in O(log n)
+ * time.
+ * <p>
+ * The nodes are stored in a red-black tree, ordered by their position in the
+ * list. Each entry of the tree stores the number of entries in its subtree,
+ * which permits to find the i-th entry by descending from the root. In
+ * addition, a hash map associates each node with its entry, such that a node
+ * is found without searching the tree.
+ */
+public class OrderStatisticNodeList implements NodeListInterface, Iterable<Node> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    /**
+     * An entry of the tree.
+     */
+    private static class Entry {
+
+        private Node node;
+        private Entry left, right, parent;
+        private boolean color = BLACK;
+        private int size; // the number of entries in the subtree rooted at this entry
+
+        private Entry(Node node) {
+            this.node = node;
+        }
+    }
+
+    // the sentinel used instead of null for the leaves and the parent of the root
+    private final Entry nil = new Entry(null);
+    private Entry root = nil;
+
+    private final IdentityHashMap<Node, Entry> entries = new IdentityHashMap<>();
+
+    // incremented whenever the list is modified, to detect concurrent modifications
+    private int modCount = 0;
+
+    /**
+     * Creates an empty node list.
+     */
+    public OrderStatisticNodeList() {
+        nil.left = nil;
+        nil.right = nil;
+        nil.parent = nil;
+    }
+
+    /**
+     * Appends a node at the end of this list. Adding a node that is already
+     * contained in this list has no effect.
+     *
+     * @param n The node to add.
+     */
+    @Override
+    public void addNode(Node n) {
+        if (entries.containsKey(n)) {
+            return;
+        }
+        Entry e = new Entry(n);
+        e.left = nil;
+        e.right = nil;
+        e.color = RED;
+        e.size = 1;
+        entries.put(n, e);
+        modCount++;
+        if (root == nil) {
+            e.parent = nil;
+            root = e;
+        } else {
+            Entry p = root;
+            p.size++;
+            while (p.right != nil) {
+                p = p.right;
+                p.size++;
+            }
+            p.right = e;
+            e.parent = p;
+        }
+        insertFixup(e);
+    }
+
+    @Override
+    public boolean removeNode(Node n) {
+        Entry e = entries.remove(n);
+        if (e == null) {
+            return false;
+        }
+        modCount++;
+        delete(e);
+        return true;
+    }
+
+    /**
+     * @param n A node.
+     * @return True if this list contains the given node, otherwise false.
+     */
+    public boolean contains(Node n) {
+        return entries.containsKey(n);
+    }
+
+    /**
+     * @return The number of nodes in this list.
+     */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Returns the node at the given position of this list.
+     *
+     * @param index The position of the node, starting at 0.
+     * @return The node at the given position.
+     * @throws IndexOutOfBoundsException if the index is negative or not smaller
+     *                                   than the size of this list.
+     */
+    public Node get(int index) {
+        if (index < 0 || index >= root.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + root.size);
+        }
+        Entry e = root;
+        while (true) {
+            int leftSize = e.left.size;
+            if (index < leftSize) {
+                e = e.left;
+            } else if (index == leftSize) {
+                return e.node;
+            } else {
+                index -= leftSize + 1;
+                e = e.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of a node in this list.
+     *
+     * @param n A node.
+     * @return The position of the node, starting at 0, or -1 if the node is not
+     * contained in this list.
+     */
+    public int indexOf(Node n) {
+        Entry e = entries.get(n);
+        if (e == null) {
+            return -1;
+        }
+        int index = e.left.size;
+        for (; e != root; e = e.parent) {
+            if (e == e.parent.right) {
+                index += e.parent.left.size + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns an iterator over the nodes of this list, in the order they were
+     * added. The iterator supports the removal of the last returned node.
+     *
+     * @return An iterator over the nodes of this list.
+     */
+    @Override
+    public Iterator<Node> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * @return An enumeration over the nodes of this list, in the order they were
+     * added.
+     */
+    public Enumeration<Node> elements() {
+        Iterator<Node> it = iterator();
+        return new Enumeration<Node>() {
+            @Override
+            public boolean hasMoreElements() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Node nextElement() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Copies the nodes of this list into an array.
+     *
+     * @param a The array to store the nodes in, if it is large enough.
+     * @return The array containing the nodes, followed by null if the array is
+     * larger than this list.
+     */
+    public Node[] toArray(Node[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = new Node[size];
+        }
+        int i = 0;
+        for (Entry e = first(root); e != nil; e = successor(e)) {
+            a[i++] = e.node;
+        }
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    private class Itr implements Iterator<Node> {
+
+        private Entry next = root == nil ? nil : first(root);
+        private Entry lastReturned = nil;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != nil;
+        }
+
+        @Override
+        public Node next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == nil) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return lastReturned.node;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == nil) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // the entries are relinked, not copied, such that 'next' remains valid
+            removeNode(lastReturned.node);
+            lastReturned = nil;
+            expectedModCount = modCount;
+        }
+    }
+
+    private Entry first(Entry e) {
+        while (e.left != nil) {
+            e = e.left;
+        }
+        return e;
+    }
+
+    private Entry successor(Entry e) {
+        if (e.right != nil) {
+            return first(e.right);
+        }
+        Entry p = e.parent;
+        while (p != nil && e == p.right) {
+            e = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    private void rotateLeft(Entry x) {
+        Entry y = x.right;
+        x.right = y.left;
+        if (y.left != nil) {
+            y.left.parent = x;
+        }
+        y.parent = x.parent;
+        if (x.parent == nil) {
+            root = y;
+        } else if (x == x.parent.left) {
+            x.parent.left = y;
+        } else {
+            x.parent.right = y;
+        }
+        y.left = x;
+        x.parent = y;
+        y.size = x.size;
+        x.size = x.left.size + x.right.size + 1;
+    }
+
+    private void rotateRight(Entry x) {
+        Entry y = x.left;
+        x.left = y.right;
+        if (y.right != nil) {
+            y.right.parent = x;
+        }
+        y.parent = x.parent;
+        if (x.parent == nil) {
+            root = y;
+        } else if (x == x.parent.right) {
+            x.parent.right = y;
+        } else {
+            x.parent.left = y;
+        }
+        y.right = x;
+        x.parent = y;
+        y.size = x.size;
+        x.size = x.left.size + x.right.size + 1;
+    }
+
+    private void insertFixup(Entry z) {
+        while (z.parent.color == RED) {
+            Entry g = z.parent.parent;
+            if (z.parent == g.left) {
+                Entry y = g.right;
+                if (y.color == RED) {
+                    z.parent.color = BLACK;
+                    y.color = BLACK;
+                    g.color = RED;
+                    z = g;
+                } else {
+                    if (z == z.parent.right) {
+                        z = z.parent;
+                        rotateLeft(z);
+                    }
+                    z.parent.color = BLACK;
+                    z.parent.parent.color = RED;
+                    rotateRight(z.parent.parent);
+                }
+            } else {
+                Entry y = g.left;
+                if (y.color == RED) {
+                    z.parent.color = BLACK;
+                    y.color = BLACK;
+                    g.color = RED;
+                    z = g;
+                } else {
+                    if (z == z.parent.left) {
+                        z = z.parent;
+                        rotateRight(z);
+                    }
+                    z.parent.color = BLACK;
+                    z.parent.parent.color = RED;
+                    rotateLeft(z.parent.parent);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    /**
+     * Replaces the subtree rooted at u by the subtree rooted at v.
+     */
+    private void transplant(Entry u, Entry v) {
+        if (u.parent == nil) {
+            root = v;
+        } else if (u == u.parent.left) {
+            u.parent.left = v;
+        } else {
+            u.parent.right = v;
+        }
+        v.parent = u.parent;
+    }
+
+    private void delete(Entry z) {
+        Entry y = z;
+        boolean yOriginalColor = y.color;
+        Entry x;
+        if (z.left == nil || z.right == nil) {
+            decrementSizes(z.parent);
+            x = z.left == nil ? z.right : z.left;
+            transplant(z, x);
+        } else {
+            // z is replaced by its successor y, which is removed from its position
+            y = first(z.right);
+            yOriginalColor = y.color;
+            decrementSizes(y.parent);
+            x = y.right;
+            if (y.parent == z) {
+                x.parent = y;
+            } else {
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.color = z.color;
+            y.size = z.size;
+        }
+        if (yOriginalColor == BLACK) {
+            deleteFixup(x);
+        }
+        z.left = z.right = z.parent = null;
+        z.node = null;
+        // restore the sentinel, whose parent may have been set above
+        nil.parent = nil;
+        nil.size = 0;
+    }
+
+    private void decrementSizes(Entry e) {
+        for (; e != nil; e = e.parent) {
+            e.size--;
+        }
+    }
+
+    private void deleteFixup(Entry x) {
+        while (x != root && x.color == BLACK) {
+            if (x == x.parent.left) {
+                Entry w = x.parent.right;
+                if (w.color == RED) {
+                    w.color = BLACK;
+                    x.parent.color = RED;
+                    rotateLeft(x.parent);
+                    w = x.parent.right;
+                }
+                if (w.left.color == BLACK && w.right.color == BLACK) {
+                    w.color = RED;
+                    x = x.parent;
+                } else {
+                    if (w.right.color == BLACK) {
+                        w.left.color = BLACK;
+                        w.color = RED;
+                        rotateRight(w);
+                        w = x.parent.right;
+                    }
+                    w.color = x.parent.color;
+                    x.parent.color = BLACK;
+                    w.right.color = BLACK;
+                    rotateLeft(x.parent);
+                    x = root;
+                }
+            } else {
+                Entry w = x.parent.left;
+                if (w.color == RED) {
+                    w.color = BLACK;
+                    x.parent.color = RED;
+                    rotateRight(x.parent);
+                    w = x.parent.left;
+                }
+                if (w.right.color == BLACK && w.left.color == BLACK) {
+                    w.color = RED;
+                    x = x.parent;
+                } else {
+                    if (w.left.color == BLACK) {
+                        w.right.color = BLACK;
+                        w.color = RED;
+                        rotateLeft(w);
+                        w = x.parent.left;
+                    }
+                    w.color = x.parent.color;
+                    x.parent.color = BLACK;
+                    w.left.color = BLACK;
+                    rotateRight(x.parent);
+                    x = root;
+                }
+            }
+        }
+        x.color = BLACK;
+    }
+}
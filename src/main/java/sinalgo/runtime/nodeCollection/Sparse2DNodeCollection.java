@@ -0,0 +1,308 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A 2D node collection that divides the plane into squares of side length
+ * rMax, like the {@link Geometric2DNodeCollection}, but only allocates the
+ * squares that hold at least one node. The occupied squares are stored in a hash
+ * table whose keys are the two square coordinates packed into a long, such that
+ * the memory needed by this collection depends on the number of nodes rather
+ * than on the size of the deployment area. This allows for huge deployment
+ * areas with a small rMax, for which the matrix of the
+ * {@link Geometric2DNodeCollection} would not fit into memory.
+ * <p>
+ * The possible neighbors of a node are the nodes in the 9 squares around and
+ * including the square of the node, each of which is found with a single hash
+ * table lookup. The nodes need not be placed within the deployment area.
+ */
+public class Sparse2DNodeCollection extends NodeCollectionInterface {
+
+    // the occupied squares
+    private SparseCellMap cells = new SparseCellMap();
+
+    // a flat list for fast iteration over all nodes
+    private OrderStatisticNodeList localNodes = new OrderStatisticNodeList();
+
+    // the maximal distance between any two connected nodes
+    private double rMax;
+
+    // The enumeration object used repeatedly to access the potential neighbors of a
+    // node. There is one instance per thread, as the connections of the nodes may
+    // be updated in parallel.
+    private final ThreadLocal<Sparse2DNodeEnumeration> enumeration = ThreadLocal
+            .withInitial(Sparse2DNodeEnumeration::new);
+
+    /**
+     * Default constructor. Creates and initializes the sparse node collection.
+     */
+    public Sparse2DNodeCollection() {
+        // Immediately stop execution if rMax is not defined in the xml config file.
+        try {
+            rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException(e.getMessage());
+        }
+        if (rMax <= 0) {
+            throw new SinalgoFatalException("Sparse2DNodeCollection: The value of rMax from the config file entry "
+                    + "<GeometricNodeCollection rMax=\"" + rMax + "\"/>"
+                    + "is not valid. The value of rMax must be positive.");
+        }
+    }
+
+    /**
+     * Maps a component of a position-coordinate to the corresponding square
+     * coordinate.
+     */
+    private int mapCoord(double c) {
+        return (int) Math.floor(c / rMax);
+    }
+
+    /**
+     * Packs the coordinates of a square into the key of the square.
+     */
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static long key(SquarePos pos) {
+        return key(pos.x, pos.y);
+    }
+
+    @Override
+    public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+        // in 2D returns the same as getNodeEnumeration()
+        return localNodes.elements();
+    }
+
+    @Override
+    public Enumeration<Node> getNodeEnumeration() {
+        return localNodes.elements();
+    }
+
+    @Override
+    protected Iterator<Node> _iterator() {
+        return new SquareSensitiveIterator();
+    }
+
+    /**
+     * This is a wrapper class around an Iterator. It removes a node from its
+     * square when someone deletes a node from the localNodes by calling the remove
+     * method of the iterator.
+     */
+    private class SquareSensitiveIterator implements Iterator<Node> {
+
+        private final Iterator<Node> iter = localNodes.iterator();
+        private Node last = null;
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            last = iter.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+            removeFromSquare(last, "Sparse2DNodeCollection.iterator().remove()");
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+        Sparse2DNodeEnumeration e = enumeration.get();
+        e.resetForNode(n);
+        return e;
+    }
+
+    @Override
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        Position pos = n.getPosition();
+        int x = mapCoord(pos.xCoord);
+        int y = mapCoord(pos.yCoord);
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                DLLNodeList cell = cells.get(key(i, j));
+                if (cell != null) {
+                    for (Iterator<Node> it = cell.newIterator(); it.hasNext(); ) {
+                        action.accept(it.next());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void _addNode(Node n) {
+        n.holdInNodeCollection = true;
+
+        Position pos = n.getPosition();
+        SquarePos squarePos = new SquarePos(mapCoord(pos.xCoord), mapCoord(pos.yCoord));
+        n.nodeCollectionInfo = squarePos;
+
+        cells.addNode(key(squarePos), n);
+        localNodes.addNode(n);
+    }
+
+    @Override
+    public void _removeNode(Node n) {
+        n.holdInNodeCollection = false;
+        removeFromSquare(n, "Sparse2DNodeCollection.removeNode(Node)");
+        localNodes.removeNode(n);
+    }
+
+    private void removeFromSquare(Node n, String caller) {
+        if (!cells.removeNode(key((SquarePos) n.nodeCollectionInfo), n)) {
+            // the node was not located where it said! ERROR!
+            throw new SinalgoFatalException(caller + ":\nA node is being removed, but it is not "
+                    + "located in the square in which it claims to be.");
+        }
+        n.nodeCollectionInfo = null;
+    }
+
+    @Override
+    public void _updateNodeCollection(Node n) {
+        if (!n.holdInNodeCollection) {
+            return; // the node is not yet hold by this node collection
+        }
+        // test whether the node has changed the square
+        SquarePos oldPos = (SquarePos) n.nodeCollectionInfo;
+        Position pos = n.getPosition();
+        int x = mapCoord(pos.xCoord);
+        int y = mapCoord(pos.yCoord);
+        if (oldPos.x != x || oldPos.y != y) {
+            // move the node to its new square
+            if (!cells.removeNode(key(oldPos), n)) {
+                throw new SinalgoFatalException("Sparse2DNodeCollection.updateNodeCollection(Node):\n"
+                        + "A node is being removed from its square, but it is not located in the square in which it claims to be.");
+            }
+            oldPos.x = x;
+            oldPos.y = y;
+            cells.addNode(key(oldPos), n);
+        }
+    }
+
+    @Override
+    public Node getRandomNode() {
+        return super.defaultGetRandomNode(localNodes);
+    }
+
+    @Override
+    public int size() {
+        return localNodes.size();
+    }
+
+    /**
+     * An enumeration over the nodes in the 9 squares around a given node.
+     * <p>
+     * Note that you must call resetForNode(Node) prior to using any instance of
+     * this class.
+     */
+    private class Sparse2DNodeEnumeration implements Enumeration<Node> {
+
+        private int ox, oy; // the square below the 9 squares to visit
+        private int square; // the index of the current square, 0 to 8
+        private Iterator<Node> iterator;
+
+        /**
+         * Prepares this enumeration for a given node n. This method needs to be called
+         * prior to using the enumeration object.
+         *
+         * @param n The node for which the potential neighbors should be enumerated.
+         */
+        private void resetForNode(Node n) {
+            Position pos = n.getPosition();
+            ox = mapCoord(pos.xCoord) - 1;
+            oy = mapCoord(pos.yCoord) - 1;
+            square = -1;
+            iterator = null;
+            gotoNextOccupiedSquare();
+        }
+
+        /**
+         * Advances to the next of the 9 squares that holds a node.
+         *
+         * @return true if another occupied square was found, otherwise false.
+         */
+        private boolean gotoNextOccupiedSquare() {
+            while (++square < 9) {
+                DLLNodeList list = cells.get(key(ox + square / 3, oy + square % 3));
+                if (list != null) {
+                    iterator = list.newIterator();
+                    return true;
+                }
+            }
+            iterator = null;
+            return false;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            while (iterator != null) {
+                if (iterator.hasNext()) {
+                    return true;
+                }
+                gotoNextOccupiedSquare();
+            }
+            return false;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (!hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+        }
+    }
+}
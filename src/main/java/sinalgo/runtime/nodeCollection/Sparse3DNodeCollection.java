@@ -0,0 +1,324 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.SinalgoFatalException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A 3D node collection that divides the space into cells of side length rMax,
+ * like the {@link Geometric3DNodeCollection}, but only allocates the cells that
+ * hold at least one node. The occupied cells are stored in a hash table, such
+ * that the memory needed by this collection depends on the number of nodes
+ * rather than on the size of the deployment area. This is well suited for
+ * sparse deployments in a large volume, where most cells of the dense matrix of
+ * the {@link Geometric3DNodeCollection} would remain empty.
+ * <p>
+ * The possible neighbors of a node are the nodes in the 27 cells around and
+ * including the cell of the node, each of which is found with a single hash
+ * table lookup. The nodes need not be placed within the deployment area.
+ */
+public class Sparse3DNodeCollection extends NodeCollectionInterface {
+
+    // the number of bits of each cell coordinate in the key of a cell
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    // the occupied cells
+    private SparseCellMap cells = new SparseCellMap();
+
+    // a flat list for fast iteration over all nodes
+    private OrderStatisticNodeList flatList = new OrderStatisticNodeList();
+
+    // the nodes sorted by their distance to the viewer
+    private DepthSortedNodeArray sortedNodes = new DepthSortedNodeArray();
+
+    // the maximal distance between any two connected nodes
+    private double rMax;
+
+    // The enumeration object used repeatedly to access the potential neighbors of a
+    // node. There is one instance per thread, as the connections of the nodes may
+    // be updated in parallel.
+    private final ThreadLocal<Sparse3DNodeEnumeration> enumeration = ThreadLocal
+            .withInitial(Sparse3DNodeEnumeration::new);
+
+    /**
+     * Default constructor. Creates and initializes the sparse node collection.
+     */
+    public Sparse3DNodeCollection() {
+        // Immediately stop execution if rMax is not defined in the xml config file.
+        try {
+            rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+        } catch (CorruptConfigurationEntryException e) {
+            throw new SinalgoFatalException(e.getMessage());
+        }
+        if (rMax <= 0) {
+            throw new SinalgoFatalException("Sparse3DNodeCollection: The value of rMax from the config file entry "
+                    + "<GeometricNodeCollection rMax=\"" + rMax + "\"/>"
+                    + "is not valid. The value of rMax must be positive.");
+        }
+    }
+
+    /**
+     * Maps a component of a position-coordinate to the corresponding cell
+     * coordinate.
+     */
+    private int mapCoord(double c) {
+        return (int) Math.floor(c / rMax);
+    }
+
+    /**
+     * Packs the coordinates of a cell into the key of the cell. Cells whose
+     * coordinates differ by a multiple of 2^21 share the same key, which only
+     * adds further candidates to the possible neighbors.
+     */
+    private static long key(int x, int y, int z) {
+        return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    private static long key(CubePos pos) {
+        return key(pos.x, pos.y, pos.z);
+    }
+
+    @Override
+    public Enumeration<Node> getSortedNodeEnumeration(boolean backToFront) {
+        return sortedNodes.getSortedNodeEnumeration(flatList, backToFront);
+    }
+
+    @Override
+    public Enumeration<Node> getNodeEnumeration() {
+        return flatList.elements();
+    }
+
+    @Override
+    protected Iterator<Node> _iterator() {
+        return new CellSensitiveIterator();
+    }
+
+    /**
+     * This is a wrapper class around an Iterator. It removes a node from its cell
+     * and marks the sorted nodes as changed when someone deletes a node from the
+     * flatList by calling the remove method of the iterator.
+     */
+    private class CellSensitiveIterator implements Iterator<Node> {
+
+        private final Iterator<Node> iter = flatList.iterator();
+        private Node last = null;
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public Node next() {
+            last = iter.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+            removeFromCell(last, "Sparse3DNodeCollection.iterator().remove()");
+            sortedNodes.setChanged();
+        }
+    }
+
+    @Override
+    public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
+        Sparse3DNodeEnumeration e = enumeration.get();
+        e.resetForNode(n);
+        return e;
+    }
+
+    @Override
+    public void forEachPossibleNeighbor(Node n, Consumer<? super Node> action) {
+        Position pos = n.getPosition();
+        int x = mapCoord(pos.xCoord);
+        int y = mapCoord(pos.yCoord);
+        int z = mapCoord(pos.zCoord);
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                for (int k = z - 1; k <= z + 1; k++) {
+                    DLLNodeList cell = cells.get(key(i, j, k));
+                    if (cell != null) {
+                        for (Iterator<Node> it = cell.newIterator(); it.hasNext(); ) {
+                            action.accept(it.next());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void _addNode(Node n) {
+        n.holdInNodeCollection = true;
+
+        Position pos = n.getPosition();
+        CubePos cubePos = new CubePos(mapCoord(pos.xCoord), mapCoord(pos.yCoord), mapCoord(pos.zCoord));
+        n.nodeCollectionInfo = cubePos;
+
+        cells.addNode(key(cubePos), n);
+        flatList.addNode(n);
+        sortedNodes.setChanged();
+    }
+
+    @Override
+    public void _removeNode(Node n) {
+        n.holdInNodeCollection = false;
+        removeFromCell(n, "Sparse3DNodeCollection.removeNode(Node)");
+        flatList.removeNode(n);
+        sortedNodes.setChanged();
+    }
+
+    private void removeFromCell(Node n, String caller) {
+        if (!cells.removeNode(key((CubePos) n.nodeCollectionInfo), n)) {
+            // the node was not located where it said! ERROR!
+            throw new SinalgoFatalException(caller + ":\nA node is being removed, but it is not "
+                    + "located in the cell in which it claims to be.");
+        }
+        n.nodeCollectionInfo = null;
+    }
+
+    @Override
+    public void _updateNodeCollection(Node n) {
+        if (!n.holdInNodeCollection) {
+            return; // the node is not yet hold by this node collection
+        }
+        // test whether the node has changed the cell
+        CubePos oldPos = (CubePos) n.nodeCollectionInfo;
+        Position pos = n.getPosition();
+        int x = mapCoord(pos.xCoord);
+        int y = mapCoord(pos.yCoord);
+        int z = mapCoord(pos.zCoord);
+        if (oldPos.x != x || oldPos.y != y || oldPos.z != z) {
+            // move the node to its new cell
+            if (!cells.removeNode(key(oldPos), n)) {
+                throw new SinalgoFatalException("Sparse3DNodeCollection.updateNodeCollection(Node):\n"
+                        + "A node is being removed from its cell, but it is not located in the cell in which it claims to be.");
+            }
+            oldPos.x = x;
+            oldPos.y = y;
+            oldPos.z = z;
+            cells.addNode(key(oldPos), n);
+        }
+    }
+
+    @Override
+    public Node getRandomNode() {
+        return super.defaultGetRandomNode(flatList);
+    }
+
+    @Override
+    public int size() {
+        return flatList.size();
+    }
+
+    /**
+     * An enumeration over the nodes in the 27 cells around a given node.
+     * <p>
+     * Note that you must call resetForNode(Node) prior to using any instance of
+     * this class.
+     */
+    private class Sparse3DNodeEnumeration implements Enumeration<Node> {
+
+        private int ox, oy, oz; // the cell below the 27 cells to visit
+        private int cell; // the index of the current cell, 0 to 26
+        private Iterator<Node> iterator;
+
+        /**
+         * Prepares this enumeration for a given node n. This method needs to be called
+         * prior to using the enumeration object.
+         *
+         * @param n The node for which the potential neighbors should be enumerated.
+         */
+        private void resetForNode(Node n) {
+            Position pos = n.getPosition();
+            ox = mapCoord(pos.xCoord) - 1;
+            oy = mapCoord(pos.yCoord) - 1;
+            oz = mapCoord(pos.zCoord) - 1;
+            cell = -1;
+            iterator = null;
+            gotoNextOccupiedCell();
+        }
+
+        /**
+         * Advances to the next of the 27 cells that holds a node.
+         *
+         * @return true if another occupied cell was found, otherwise false.
+         */
+        private boolean gotoNextOccupiedCell() {
+            while (++cell < 27) {
+                DLLNodeList list = cells.get(key(ox + cell / 9, oy + cell / 3 % 3, oz + cell % 3));
+                if (list != null) {
+                    iterator = list.newIterator();
+                    return true;
+                }
+            }
+            iterator = null;
+            return false;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            while (iterator != null) {
+                if (iterator.hasNext()) {
+                    return true;
+                }
+                gotoNextOccupiedCell();
+            }
+            return false;
+        }
+
+        @Override
+        public Node nextElement() {
+            if (!hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+BSD 3-Clause License
+
+Copyright (c) 2007-2013, Distributed Computing Group (DCG)
+                         ETH Zurich
+                         Switzerland
+                         dcg.ethz.ch
+              2017-2018, André Brait
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+* Redistributions of source code must retain the above copyright notice, this
+  list of conditions and the following disclaimer.
+
+* Redistributions in binary form must reproduce the above copyright notice,
+  this list of conditions and the following disclaimer in the documentation
+  and/or other materials provided with the distribution.
+
+* Neither the name of the copyright holder nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import sinalgo.nodes.Node;
+
+/**
+ * Maps the coordinates of the occupied cells of a sparse grid, packed into a
+ * single long, to the list of nodes in the cell. Only the cells that hold at
+ * least one node are stored, such that the memory depends on the number of
+ * nodes rather than on the size of the deployment area.
+ * <p>
+ * The map is an open addressing hash table with linear probing. It may be read
+ * by several threads concurrently, as long as none of them modifies it.
+ */
+class SparseCellMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // the hash table. A slot is empty iff its cell is null.
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private DLLNodeList[] cells = new DLLNodeList[INITIAL_CAPACITY];
+
+    // the number of occupied cells
+    private int size = 0;
+
+    /**
+     * @return The number of cells that hold at least one node.
+     */
+    int size() {
+        return size;
+    }
+
+    private static int hash(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32) ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the list of nodes in the given cell.
+     *
+     * @param key The packed coordinates of the cell.
+     * @return The nodes in the cell, null if the cell holds no node.
+     */
+    DLLNodeList get(long key) {
+        int mask = cells.length - 1;
+        for (int i = hash(key, mask); cells[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return cells[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a node to the given cell, and allocates the cell if it held no node.
+     *
+     * @param key The packed coordinates of the cell.
+     * @param n   The node to add.
+     */
+    void addNode(long key, Node n) {
+        int mask = cells.length - 1;
+        int i = hash(key, mask);
+        while (cells[i] != null) {
+            if (keys[i] == key) {
+                cells[i].addNode(n);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (2 * (size + 1) > cells.length) {
+            this.resize(2 * cells.length);
+            this.addNode(key, n);
+            return;
+        }
+        DLLNodeList cell = new DLLNodeList(true);
+        cell.addNode(n);
+        keys[i] = key;
+        cells[i] = cell;
+        size++;
+    }
+
+    /**
+     * Removes a node from the given cell, and releases the cell if it holds no
+     * more node.
+     *
+     * @param key The packed coordinates of the cell.
+     * @param n   The node to remove.
+     * @return True if the node was contained in the cell, otherwise false.
+     */
+    boolean removeNode(long key, Node n) {
+        int mask = cells.length - 1;
+        int i = hash(key, mask);
+        while (cells[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (cells[i] == null || !cells[i].removeNode(n)) {
+            return false;
+        }
+        if (cells[i].size() > 0) {
+            return true;
+        }
+        cells[i] = null;
+        size--;
+        // move the following entries of the probe sequence into the gap
+        for (int j = (i + 1) & mask; cells[j] != null; j = (j + 1) & mask) {
+            int h = hash(keys[j], mask);
+            boolean movable = (i <= j) ? (h <= i || h > j) : (h <= i && h > j);
+            if (movable) {
+                keys[i] = keys[j];
+                cells[i] = cells[j];
+                cells[j] = null;
+                i = j;
+            }
+        }
+        if (cells.length > INITIAL_CAPACITY && 8 * size < cells.length) {
+            this.resize(cells.length / 2);
+        }
+        return true;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        DLLNodeList[] oldCells = cells;
+        keys = new long[capacity];
+        cells = new DLLNodeList[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldCells.length; j++) {
+            if (oldCells[j] != null) {
+                int i = hash(oldKeys[j], mask);
+                while (cells[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                cells[i] = oldCells[j];
+            }
+        }
+    }
+}
@@ -37,6 +37,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package sinalgo.runtime.packetsInTheAir;
 
 import sinalgo.configuration.Configuration;
+import sinalgo.models.InterferenceModel;
+import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.tools.storage.DoublyLinkedList;
 import sinalgo.tools.storage.ReusableListIterator;
@@ -51,11 +53,32 @@ import java.util.Iterator;
  * packets that actively contribute to the interference. I.e. there is only one
  * packet per multicast that actively contributes to interference, namely the
  * one that takes longest to send.
+ * <p>
+ * In asynchronous mode with non-additive interference, the packets are tested
+ * for interference whenever a packet is added or removed. For packets whose
+ * destination uses an interference model that supports incremental updates
+ * (see {@link InterferenceModel#isIncrementalUpdateSupported()}), this buffer
+ * keeps the sum of the interference caused by the other packets, which is
+ * updated by the contribution of the added or removed packet only, using
+ * compensated summation to avoid the accumulation of rounding errors. When a
+ * node moves, all sums are recomputed upon the next change.
+ * <p>
+ * Furthermore, this buffer counts the active packets sent by and sent to each
+ * node, such that interference models can determine in constant time whether a
+ * receiver is sending itself, or whether several packets arrive at the same
+ * receiver.
  */
 public class PacketsInTheAirBuffer implements Iterable<Packet> {
 
     private boolean newAdded = true;
 
+    // incremented whenever the interference may have changed, see getVersion()
+    private long version = 0;
+
+    // set when a node moved while packets were in the air, such that the
+    // interference sums kept in the packets need to be recomputed
+    private boolean interferenceSumsInvalidated = false;
+
     // The list of all packets that actively contribute to interference.
     private DoublyLinkedList<Packet> activePackets = new DoublyLinkedList<>(true);
 
@@ -77,14 +100,25 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
      * @param p The packet to remove
      */
     public void remove(Packet p) {
-        if (!activePackets.remove(p)) {
+        boolean wasActive = activePackets.remove(p);
+        if (!wasActive) {
             if (!passivePackets.remove(p)) {
                 // The packet was in neither list
                 return; // nothing changed, the interference did not change
             }
         }
+        version++;
+        if (wasActive) {
+            this.unindex(p);
+        }
         if (Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
-            testForInterference();
+            if (interferenceSumsInvalidated || (wasActive && activePackets.isEmpty())) {
+                // resets the sums of the remaining passive packets to exactly 0
+                this.initializeAllInterference();
+            } else if (wasActive) {
+                this.updateInterference(p, -1);
+            }
+            this.testPackets();
         }
     }
 
@@ -103,6 +137,7 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
      * and only if there were insertions after the last removal.
      */
     public void testForInterference() {
+        version++; // the nodes may have moved since the last test
         // check for packets that are interferred
         // PS: only check the packets for interference that are still alive
         // dead packets are still "int the air" as the sender does not know that it is
@@ -128,6 +163,129 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
         }
     }
 
+    /**
+     * Tests the packets that may still be delivered for interference, after a
+     * packet was added or removed in asynchronous mode with non-additive
+     * interference. For packets whose destination supports incremental updates,
+     * the test is based on the interference sum kept in the packet, and takes
+     * constant time.
+     */
+    private void testPackets() {
+        this.testPackets(activePacketsIterator);
+        this.testPackets(passivePacketsIterator);
+    }
+
+    private void testPackets(ReusableListIterator<Packet> iterator) {
+        iterator.reset();
+        while (iterator.hasNext()) {
+            Packet pack = iterator.next();
+            if (pack.positiveDelivery) {
+                InterferenceModel model = pack.destination.getInterferenceModel();
+                if (!model.isIncrementalUpdateSupported()) {
+                    pack.positiveDelivery = !model.isDisturbed(pack);
+                } else {
+                    // the rounding errors may leave a tiny negative sum
+                    double interference = Math.max(0, pack.interference + pack.interferenceCompensation);
+                    pack.positiveDelivery = pack.numBlockingPackets == 0 && !model.isDisturbed(pack, interference);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the sum of the interference caused by all active packets at the
+     * destination of a packet that was just added, if its destination supports
+     * incremental updates.
+     *
+     * @param p The added packet.
+     */
+    private void initializeInterference(Packet p) {
+        p.interference = 0;
+        p.interferenceCompensation = 0;
+        p.numBlockingPackets = 0;
+        InterferenceModel model = p.destination.getInterferenceModel();
+        if (!model.isIncrementalUpdateSupported()) {
+            return;
+        }
+        activePacketsIterator.reset();
+        while (activePacketsIterator.hasNext()) {
+            Packet source = activePacketsIterator.next();
+            if (source != p) {
+                addInterference(p, model.getInterference(p, source), 1);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the interference sums of all packets, after a node has moved or
+     * the last active packet was removed.
+     */
+    private void initializeAllInterference() {
+        for (Packet p : activePackets) {
+            this.initializeInterference(p);
+        }
+        for (Packet p : passivePackets) {
+            this.initializeInterference(p);
+        }
+        interferenceSumsInvalidated = false;
+    }
+
+    /**
+     * <b>This member is framework internal and should not be used by the project
+     * developer.</b> Called whenever a node has moved. As the interference of the
+     * packets in the air depends on the positions of the nodes, this increments
+     * the version of this buffer, and the interference sums kept for the
+     * incremental updates are recomputed upon the next change of this buffer.
+     */
+    public void nodeMoved() {
+        if (activePackets.isEmpty() && passivePackets.isEmpty()) {
+            return;
+        }
+        version++;
+        interferenceSumsInvalidated = true;
+    }
+
+    /**
+     * Adds or subtracts the interference caused by an active packet to or from the
+     * interference sums of all other packets whose destination supports
+     * incremental updates.
+     *
+     * @param source The active packet that was added or removed.
+     * @param sign   1 if the packet was added, -1 if it was removed.
+     */
+    private void updateInterference(Packet source, int sign) {
+        this.updateInterference(activePacketsIterator, source, sign);
+        this.updateInterference(passivePacketsIterator, source, sign);
+    }
+
+    private void updateInterference(ReusableListIterator<Packet> iterator, Packet source, int sign) {
+        iterator.reset();
+        while (iterator.hasNext()) {
+            Packet p = iterator.next();
+            InterferenceModel model = p.destination.getInterferenceModel();
+            if (p != source && model.isIncrementalUpdateSupported()) {
+                addInterference(p, model.getInterference(p, source), sign);
+            }
+        }
+    }
+
+    private static void addInterference(Packet p, double interference, int sign) {
+        if (interference == Double.POSITIVE_INFINITY) {
+            p.numBlockingPackets += sign;
+            return;
+        }
+        // compensated summation (Neumaier), as the interference of the packets may
+        // differ by many orders of magnitude
+        double x = sign * interference;
+        double sum = p.interference + x;
+        if (Math.abs(p.interference) >= Math.abs(x)) {
+            p.interferenceCompensation += (p.interference - sum) + x;
+        } else {
+            p.interferenceCompensation += (x - sum) + p.interference;
+        }
+        p.interference = sum;
+    }
+
     /**
      * In asynchronous mode, this method is called before a packet is removed from
      * the list of packets in the air. If necessary, it determines for all messages
@@ -155,9 +313,17 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
      */
     public void add(Packet p) {
         newAdded = true;
+        version++;
         activePackets.append(p);
+        this.index(p);
         if (Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
-            testForInterference();
+            if (interferenceSumsInvalidated) {
+                this.initializeAllInterference();
+            } else {
+                this.initializeInterference(p);
+                this.updateInterference(p, 1);
+            }
+            this.testPackets();
         }
     }
 
@@ -172,7 +338,15 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
      * @param p The packet to add to the passive list
      */
     public void addPassivePacket(Packet p) {
+        version++;
         passivePackets.append(p);
+        if (Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
+            if (interferenceSumsInvalidated) {
+                this.initializeAllInterference();
+            } else {
+                this.initializeInterference(p);
+            }
+        }
     }
 
     /**
@@ -187,6 +361,67 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
         add(p);
     }
 
+    /**
+     * Returns a number that changes whenever a packet is added to or removed from
+     * this buffer, whenever a node moves while packets are in the air, and
+     * whenever all packets are tested for interference. Interference models that precompute
+     * some information about the packets in the air may use this number to
+     * detect when the information is outdated.
+     *
+     * @return The current version of this buffer.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Tests whether a packet actively contributes to interference, i.e., whether
+     * it is contained in the iterator of this buffer.
+     *
+     * @param p The packet to test.
+     * @return True if the packet is an active packet of this buffer, otherwise
+     * false.
+     */
+    public boolean isActive(Packet p) {
+        return activePackets.contains(p);
+    }
+
+    /**
+     * Returns the number of active packets sent by a node, in constant time.
+     *
+     * @param n The node.
+     * @return The number of active packets whose origin is the given node.
+     */
+    public int getNumberOfActivePacketsFrom(Node n) {
+        return n.numActivePacketsFrom;
+    }
+
+    /**
+     * Returns the number of active packets sent to a node by other nodes, in
+     * constant time. Packets a node sends to itself are not counted.
+     *
+     * @param n The node.
+     * @return The number of active packets whose destination is the given node,
+     * and whose origin is a different node.
+     */
+    public int getNumberOfActivePacketsTo(Node n) {
+        return n.numActivePacketsTo;
+    }
+
+    private void index(Packet p) {
+        p.origin.numActivePacketsFrom++;
+        if (p.origin.ID != p.destination.ID) {
+            p.destination.numActivePacketsTo++;
+        }
+    }
+
+    private void unindex(Packet p) {
+        p.origin.numActivePacketsFrom--;
+        if (p.origin.ID != p.destination.ID) {
+            p.destination.numActivePacketsTo--;
+        }
+    }
+
     /**
      * Returns the number of packets in the air. Multicast packets are counted as
      * one packet.
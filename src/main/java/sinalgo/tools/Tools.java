@@ -127,7 +127,7 @@ public class Tools {
      * @return The global time of the simulation.
      */
     public static double getGlobalTime() {
-        return Global.currentTime;
+        return Global.getCurrentTime();
     }
 
     /**
@@ -376,20 +376,16 @@ public class Tools {
     }
 
     /**
-     * Returns the node with the given ID, null if there is no such node. Note: This
-     * method is rather expensive, as it loops over all nodes until it finds the
-     * suitable node.
+     * Returns the node with the given ID, null if there is no such node. The node
+     * is looked up in the index of the node collection, which takes constant
+     * time.
      *
      * @param id The ID of the node to return.
      * @return The node with the given ID, null if there is no such node.
+     * @see NodeCollectionInterface#getNodeByID(int)
      */
     public static Node getNodeByID(int id) {
-        for (Node n : SinalgoRuntime.nodes) {
-            if (n.ID == id) {
-                return n;
-            }
-        }
-        return null;
+        return SinalgoRuntime.nodes.getNodeByID(id);
     }
 
     /**
@@ -39,6 +39,7 @@ package sinalgo.tools.statistics;
 import sinalgo.configuration.AppConfig;
 import sinalgo.configuration.Configuration;
 import sinalgo.exception.CorruptConfigurationEntryException;
+import sinalgo.exception.WrongConfigurationException;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -69,6 +70,7 @@ public abstract class Distribution {
     protected static Random randomGenerator; // the singleton instance of the random object. Be sure to initialize
     // before using the first time!
     private static long randomSeed; // the seed used for the random object
+    private static boolean randomLocked = false; // set while the nodes are executed in parallel
 
     /**
      * Returns the seed value that was used for the singleton random object.
@@ -109,11 +111,63 @@ public abstract class Distribution {
                     Configuration.fixedSeed = randomSeed;
                 }
             }
-            randomGenerator = new Random(randomSeed); // use a random seed
+            randomGenerator = new LockableRandom(randomSeed); // use a random seed
         }
         return randomGenerator;
     }
 
+    /**
+     * Locks or unlocks the singleton random generator object. While the generator
+     * is locked, drawing a random number throws a
+     * {@link WrongConfigurationException}.
+     * <p>
+     * The generator is locked while the nodes are executed in parallel (see the
+     * <code>parallelRounds</code> and <code>parallelEvents</code> flags of the
+     * configuration), as the order in which the nodes would draw the numbers
+     * depends on the scheduling of the worker threads. Hence, a run with a fixed
+     * seed could not be repeated.
+     *
+     * @param locked True to lock the random generator, false to unlock it.
+     */
+    public static void setRandomLocked(boolean locked) {
+        randomLocked = locked;
+    }
+
+    /**
+     * The singleton random generator, which refuses to draw numbers while it is
+     * locked. All methods of {@link Random} obtain their random bits through
+     * {@link #next(int)}, except for the second of two gaussians, which is cached.
+     */
+    private static class LockableRandom extends Random {
+
+        private static final long serialVersionUID = -3725817339145183762L;
+
+        private LockableRandom(long seed) {
+            super(seed);
+        }
+
+        @Override
+        protected int next(int bits) {
+            checkLock();
+            return super.next(bits);
+        }
+
+        @Override
+        public synchronized double nextGaussian() {
+            checkLock();
+            return super.nextGaussian();
+        }
+
+        private static void checkLock() {
+            if (randomLocked) {
+                throw new WrongConfigurationException("The random number generator of the simulation cannot be used "
+                        + "while the nodes are executed in parallel, as the numbers would be drawn in a "
+                        + "non-repeatable order. Turn off 'parallelRounds' and 'parallelEvents' in the configuration "
+                        + "file to draw random numbers in the step of a node or in its event handlers.");
+            }
+        }
+    }
+
     /**
      * Constructs a distribution that was specified in the XML configuration file.
      * The entry in the configuration file is supposed to look as following:
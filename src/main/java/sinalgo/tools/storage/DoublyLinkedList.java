@@ -319,6 +319,18 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
         return size;
     }
 
+    /**
+     * Tests whether an entry is contained in this list. This takes constant time,
+     * as the entry stores a finger for each list it is contained in.
+     *
+     * @param entry The entry to look for.
+     * @return True if the entry is in this list, otherwise false.
+     */
+    public boolean contains(E entry) {
+        DoublyLinkedListEntry.Finger f = entry.getDoublyLinkedListFinger().getFinger(this);
+        return f != null && (f.next != null || f.previous != null);
+    }
+
     /**
      * Returns true if the list is empty, otherwise false.
      *